@@ -0,0 +1,89 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CoinbasePriceDecoder} with binding the whole response through an
+ * ObjectMapper, the path it replaced. Both read the same bytes through a DataBuffer, as the
+ * WebClient hands them over. Run with the benchmark profile:
+ *
+ * <pre>mvn -P benchmark test-compile exec:exec</pre>
+ *
+ * The profile adds {@code -prof gc}, so the report includes the bytes allocated per decode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CoinbasePriceDecoderBenchmark {
+
+    private static final String PRICE_RESPONSE =
+            "{\"data\":{\"amount\":\"67432.185\",\"base\":\"BTC\",\"currency\":\"USD\"}}";
+
+    /** Same price with the extra fields and warnings Coinbase sometimes adds around it */
+    private static final String VERBOSE_PRICE_RESPONSE = "{\"warnings\":[{\"id\":\"missing_version\","
+            + "\"message\":\"Please supply API version (YYYY-MM-DD) as CB-VERSION header\","
+            + "\"url\":\"https://developers.coinbase.com/api#versioning\"}],"
+            + "\"data\":{\"base\":\"BTC\",\"currency\":\"USD\",\"amount\":\"67432.185\"}}";
+
+    @Param({"plain", "verbose"})
+    public String response;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    // Configured like the WebClient's codecs, which ignore unknown properties
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = ("plain".equals(response) ? PRICE_RESPONSE : VERBOSE_PRICE_RESPONSE)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BigDecimal streamingDecoder() {
+        return CoinbasePriceDecoder.decodeAmount(bufferFactory.wrap(payload));
+    }
+
+    @Benchmark
+    public BigDecimal objectMapperBinding() throws IOException {
+        DataBuffer buffer = bufferFactory.wrap(payload);
+        ApiResponse bound = objectMapper.readValue(buffer.asInputStream(true), ApiResponse.class);
+        return new BigDecimal(bound.data.amount);
+    }
+
+    /**
+     * The response model the ObjectMapper path bound to
+     */
+    public static class ApiResponse {
+        public PriceData data;
+    }
+
+    public static class PriceData {
+        public String base;
+        public String currency;
+        public String amount;
+    }
+}
@@ -32,6 +32,8 @@ public class CacheConfig {
     public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager("prices");
         cacheManager.setCaffeine(caffeine);
+        // Async mode lets concurrent misses for the same key share one in-flight load
+        cacheManager.setAsyncCacheMode(true);
         return cacheManager;
     }
 }
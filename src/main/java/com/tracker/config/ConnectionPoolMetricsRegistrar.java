@@ -0,0 +1,45 @@
+package com.tracker.config;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a handle on the metrics of each Reactor Netty connection pool so they can be
+ * reported without requiring Micrometer on the classpath.
+ */
+public class ConnectionPoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(poolKey(poolName, remoteAddress), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(poolKey(poolName, remoteAddress));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        pools.forEach((key, metrics) -> snapshot.put(key, Map.of(
+                "allocated", metrics.allocatedSize(),
+                "acquired", metrics.acquiredSize(),
+                "idle", metrics.idleSize(),
+                "pendingAcquire", metrics.pendingAcquireSize(),
+                "maxAllocated", metrics.maxAllocatedSize(),
+                "maxPendingAcquire", metrics.maxPendingAcquireSize()
+        )));
+        return snapshot;
+    }
+
+    private String poolKey(String poolName, SocketAddress remoteAddress) {
+        return poolName + "@" + remoteAddress;
+    }
+}
@@ -1,17 +1,23 @@
 package com.tracker.config;
 
+import com.tracker.model.DailyPriceRollup;
 import com.tracker.model.Enrollment;
 import com.tracker.model.PriceRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class DynamoDbConfig {
@@ -28,6 +34,15 @@ public class DynamoDbConfig {
     @Value("${aws.dynamodb.tables.price-history:price-history}")
     private String priceHistoryTableName;
 
+    @Value("${aws.dynamodb.tables.price-rollup:price-daily-rollup}")
+    private String priceRollupTableName;
+
+    @Value("${aws.dynamodb.async.max-concurrency:50}")
+    private int asyncMaxConcurrency;
+
+    @Value("${aws.dynamodb.async.connection-acquisition-timeout-millis:2000}")
+    private long asyncConnectionAcquisitionTimeoutMillis;
+
     @Bean
     public DynamoDbClient dynamoDbClient() {
         var builder = DynamoDbClient.builder()
@@ -56,4 +71,44 @@ public class DynamoDbConfig {
     public DynamoDbTable<PriceRecord> priceRecordTable(DynamoDbEnhancedClient enhancedClient) {
         return enhancedClient.table(priceHistoryTableName, TableSchema.fromBean(PriceRecord.class));
     }
+
+    @Bean
+    public DynamoDbTable<DailyPriceRollup> priceRollupTable(DynamoDbEnhancedClient enhancedClient) {
+        return enhancedClient.table(priceRollupTableName, TableSchema.fromBean(DailyPriceRollup.class));
+    }
+
+    /**
+     * Non-blocking client on the Netty HTTP client, for callers that overlap storage I/O with other calls
+     */
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient() {
+        var builder = DynamoDbAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(asyncMaxConcurrency)
+                        .connectionAcquisitionTimeout(Duration.ofMillis(asyncConnectionAcquisitionTimeoutMillis)));
+
+        if (dynamoDbEndpoint != null && !dynamoDbEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(dynamoDbEndpoint));
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+
+    @Bean
+    public DynamoDbAsyncTable<Enrollment> enrollmentAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient) {
+        return enhancedAsyncClient.table(enrollmentTableName, TableSchema.fromBean(Enrollment.class));
+    }
+
+    @Bean
+    public DynamoDbAsyncTable<PriceRecord> priceRecordAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient) {
+        return enhancedAsyncClient.table(priceHistoryTableName, TableSchema.fromBean(PriceRecord.class));
+    }
 }
@@ -1,14 +1,15 @@
 package com.tracker.config;
 
 import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -16,20 +17,70 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class WebClientConfig {
 
+    private static final String WRITE_TIMEOUT_HANDLER = "coinbaseWriteTimeout";
+
     @Value("${coinbase.api.base-url:https://api.coinbase.com/v2}")
     private String baseUrl;
 
     @Value("${coinbase.api.timeout-seconds:10}")
     private int timeoutSeconds;
 
+    @Value("${coinbase.api.pool.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${coinbase.api.pool.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${coinbase.api.pool.pending-acquire-timeout-millis:2000}")
+    private long pendingAcquireTimeoutMillis;
+
+    @Value("${coinbase.api.pool.max-idle-seconds:30}")
+    private int maxIdleSeconds;
+
+    @Value("${coinbase.api.pool.max-life-seconds:300}")
+    private int maxLifeSeconds;
+
+    @Value("${coinbase.api.pool.evict-interval-seconds:30}")
+    private int evictIntervalSeconds;
+
+    @Value("${coinbase.api.http2-enabled:false}")
+    private boolean http2Enabled;
+
     @Bean
-    public WebClient coinbaseWebClient() {
-        HttpClient httpClient = HttpClient.create()
+    public ConnectionPoolMetricsRegistrar connectionPoolMetricsRegistrar() {
+        return new ConnectionPoolMetricsRegistrar();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider coinbaseConnectionProvider(ConnectionPoolMetricsRegistrar metricsRegistrar) {
+        return ConnectionProvider.builder("coinbase")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictIntervalSeconds))
+                .metrics(true, () -> metricsRegistrar)
+                .build();
+    }
+
+    @Bean
+    public WebClient coinbaseWebClient(ConnectionProvider coinbaseConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(coinbaseConnectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeoutSeconds * 1000)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                // Bounds the wait for each response; unlike a read timeout on the channel it does
+                // not close pooled connections that sit idle between requests
                 .responseTimeout(Duration.ofSeconds(timeoutSeconds))
-                .doOnConnected(conn -> conn
-                        .addHandlerLast(new ReadTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
-                        .addHandlerLast(new WriteTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS)));
+                .doOnRequest((request, conn) -> conn.addHandlerLast(WRITE_TIMEOUT_HANDLER,
+                        new WriteTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS)))
+                .doOnResponse((response, conn) -> conn.removeHandler(WRITE_TIMEOUT_HANDLER));
+
+        if (http2Enabled) {
+            // Negotiated via ALPN; falls back to HTTP/1.1 when the server does not offer h2
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
 
         return WebClient.builder()
                 .baseUrl(baseUrl)
@@ -1,15 +1,21 @@
 package com.tracker.controller;
 
+import com.tracker.model.PriceBars;
 import com.tracker.model.PriceHistory;
 import com.tracker.model.PriceResponse;
 import com.tracker.model.TrackingStatus;
 import com.tracker.service.CoinbaseService;
 import com.tracker.service.PriceTrackingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 
@@ -21,6 +27,9 @@ public class PriceController {
     private final CoinbaseService coinbaseService;
     private final PriceTrackingService trackingService;
 
+    @Value("${tracker.stream.heartbeat-seconds:15}")
+    private int streamHeartbeatSeconds;
+
     @GetMapping("/price/{symbol}/spot")
     public ResponseEntity<PriceResponse> getSpotPrice(@PathVariable String symbol) {
         BigDecimal price = coinbaseService.getSpotPrice(symbol);
@@ -66,12 +75,35 @@ public class PriceController {
         return ResponseEntity.ok(prices);
     }
 
+    @GetMapping(value = "/price/{symbol}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PriceResponse>> streamPrices(@PathVariable String symbol) {
+        Flux<ServerSentEvent<PriceResponse>> prices = trackingService.streamPrices(symbol)
+                .map(price -> ServerSentEvent.builder(price).event("price").build());
+        // Comment-only events keep idle connections open through proxies
+        Flux<ServerSentEvent<PriceResponse>> heartbeats = Flux.interval(Duration.ofSeconds(streamHeartbeatSeconds))
+                .map(tick -> ServerSentEvent.<PriceResponse>builder().comment("heartbeat").build())
+                .onBackpressureDrop();
+        return Flux.merge(prices, heartbeats);
+    }
+
     @GetMapping("/price/{symbol}/history")
-    public ResponseEntity<PriceHistory> getPriceHistory(@PathVariable String symbol) {
-        PriceHistory history = trackingService.getPriceHistory(symbol);
+    public ResponseEntity<PriceHistory> getPriceHistory(@PathVariable String symbol,
+                                                        @RequestParam(required = false) String from,
+                                                        @RequestParam(required = false) String to,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String step,
+                                                        @RequestParam(required = false) String cursor) {
+        PriceHistory history = trackingService.getPriceHistory(symbol, from, to, limit, step, cursor);
         return ResponseEntity.ok(history);
     }
 
+    @GetMapping("/price/{symbol}/bars")
+    public ResponseEntity<PriceBars> getPriceBars(@PathVariable String symbol,
+                                                  @RequestParam(defaultValue = "1m") String interval) {
+        PriceBars bars = trackingService.getPriceBars(symbol, interval);
+        return ResponseEntity.ok(bars);
+    }
+
     @PostMapping("/track/{symbol}")
     public ResponseEntity<Map<String, Object>> startTracking(@PathVariable String symbol) {
         trackingService.startTracking(symbol);
@@ -97,11 +129,28 @@ public class PriceController {
         return ResponseEntity.ok(trackingService.getTrackingStatus());
     }
 
+    @GetMapping("/cache/prices")
+    public ResponseEntity<Map<String, Object>> getPriceCacheStats() {
+        return ResponseEntity.ok(coinbaseService.getPriceCacheStats());
+    }
+
+    @GetMapping("/pool/coinbase")
+    public ResponseEntity<Map<String, Object>> getConnectionPoolStats() {
+        return ResponseEntity.ok(coinbaseService.getConnectionPoolStats());
+    }
+
+    @GetMapping("/sampler/shards")
+    public ResponseEntity<Map<String, Object>> getSamplerStats() {
+        return ResponseEntity.ok(trackingService.getSamplerStats());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         return ResponseEntity.ok(Map.of(
                 "status", "UP",
                 "service", "coinbase-price-tracker",
+                "coinbaseCircuit", coinbaseService.getCircuitState(),
+                "streamSubscribers", trackingService.getStreamSubscriberCount(),
                 "timestamp", Instant.now()
         ));
     }
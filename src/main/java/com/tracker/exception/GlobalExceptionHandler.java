@@ -71,6 +71,18 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleUpstreamUnavailable(UpstreamUnavailableException ex) {
+        log.warn("Upstream unavailable: {}", ex.getUpstream());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", ex.getMessage(),
+                "upstream", ex.getUpstream(),
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "timestamp", Instant.now()
+        ));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex) {
         log.error("Unexpected error: {}", ex.getMessage(), ex);
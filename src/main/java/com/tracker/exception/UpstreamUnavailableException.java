@@ -0,0 +1,14 @@
+package com.tracker.exception;
+
+import lombok.Getter;
+
+@Getter
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final String upstream;
+
+    public UpstreamUnavailableException(String upstream) {
+        super(String.format("%s is temporarily unavailable. Please try again later.", upstream));
+        this.upstream = upstream;
+    }
+}
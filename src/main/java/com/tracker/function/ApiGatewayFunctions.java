@@ -4,6 +4,7 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.exception.UpstreamUnavailableException;
 import com.tracker.model.SubscriptionRequest;
 import com.tracker.model.SubscriptionResponse;
 import com.tracker.service.CoinbaseService;
@@ -98,6 +99,13 @@ public class ApiGatewayFunctions {
         try {
             var price = coinbaseService.getAllPrices(symbol);
             return createResponse(200, price);
+        } catch (UpstreamUnavailableException e) {
+            log.warn("Coinbase unavailable for {}: {}", symbol, e.getMessage());
+            return createResponse(503, Map.of(
+                    "error", "Price service temporarily unavailable",
+                    "symbol", symbol,
+                    "message", e.getMessage()
+            ));
         } catch (Exception e) {
             log.error("Failed to get price for {}: {}", symbol, e.getMessage());
             return createResponse(500, Map.of(
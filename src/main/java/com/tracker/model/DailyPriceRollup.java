@@ -0,0 +1,51 @@
+package com.tracker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.math.BigDecimal;
+
+/**
+ * One market day of a symbol's sell prices: open/high/low/close, sum and count of samples,
+ * and the day's change percent as recorded by the daily job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDbBean
+public class DailyPriceRollup {
+
+    private String symbol;
+    /** Market day, ISO yyyy-MM-dd */
+    private String day;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    /** Sample times of the open and close, epoch millis */
+    private Long openTime;
+    private Long closeTime;
+    private BigDecimal sum;
+    private Long count;
+    private BigDecimal dailyChangePercent;
+    private Long ttl;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("symbol")
+    public String getSymbol() {
+        return symbol;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("day")
+    public String getDay() {
+        return day;
+    }
+}
@@ -0,0 +1,170 @@
+package com.tracker.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Fixed-point price arithmetic on scaled {@code long} values. Prices are kept as longs for
+ * storage and math, and only converted to {@link BigDecimal} at the API boundary.
+ * The scale (number of decimal places kept) is taken from the precision of the quotes
+ * themselves rather than assumed per currency, so no quote is rounded to fit. Math that
+ * would overflow a long falls back to BigDecimal.
+ */
+public final class FixedPointPrice {
+
+    /** Sentinel for a missing price */
+    public static final long NONE = Long.MIN_VALUE;
+
+    /** Scale used for percentages, i.e. values are in basis points of a percent */
+    public static final int PERCENT_SCALE = 2;
+
+    /** Significant digits a scaled value may use; every 18-digit value fits in a long */
+    private static final int MAX_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_DIGITS; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPointPrice() {
+    }
+
+    /**
+     * Scale that keeps every decimal place of the given prices, lowered only if the largest
+     * of them would not fit in a long otherwise. Null prices are ignored.
+     */
+    public static int scaleFor(BigDecimal... values) {
+        int scale = 0;
+        for (BigDecimal value : values) {
+            if (value != null) {
+                scale = Math.max(scale, value.stripTrailingZeros().scale());
+            }
+        }
+        return Math.min(scale, maxScale(values));
+    }
+
+    /**
+     * Largest scale at which every given price fits in a long. Null prices are ignored.
+     */
+    public static int maxScale(BigDecimal... values) {
+        int maxScale = MAX_DIGITS;
+        for (BigDecimal value : values) {
+            if (value != null) {
+                BigDecimal stripped = value.stripTrailingZeros();
+                int integerDigits = Math.max(0, stripped.precision() - stripped.scale());
+                maxScale = Math.min(maxScale, MAX_DIGITS - integerDigits);
+            }
+        }
+        return maxScale;
+    }
+
+    /**
+     * @throws ArithmeticException if the value does not fit in a long at this scale, which
+     *                             cannot happen at a scale from {@link #scaleFor}
+     */
+    public static long fromBigDecimal(BigDecimal value, int scale) {
+        if (value == null) {
+            return NONE;
+        }
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long value, int scale) {
+        if (value == NONE) {
+            return null;
+        }
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    /**
+     * Convert a value to another scale, rounding half-up when decimal places are dropped
+     *
+     * @throws ArithmeticException if the value does not fit in a long at the new scale
+     */
+    public static long rescale(long value, int fromScale, int toScale) {
+        if (value == NONE || fromScale == toScale) {
+            return value;
+        }
+        int digits = Math.abs(toScale - fromScale);
+        if (digits > MAX_DIGITS) {
+            return BigDecimal.valueOf(value, fromScale).setScale(toScale, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+        }
+        return toScale > fromScale
+                ? Math.multiplyExact(value, POWERS_OF_TEN[digits])
+                : divideHalfUp(value, POWERS_OF_TEN[digits]);
+    }
+
+    /**
+     * Divide rounding half away from zero, matching {@link RoundingMode#HALF_UP}
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+
+    /**
+     * Percent change from one price to another at the same scale, rounded to two decimal places
+     */
+    public static BigDecimal percentChange(long from, long to) {
+        if (from == NONE || to == NONE || from == 0) {
+            return null;
+        }
+        try {
+            long basisPoints = divideHalfUp(Math.multiplyExact(Math.subtractExact(to, from), 10_000L), from);
+            return BigDecimal.valueOf(basisPoints, PERCENT_SCALE);
+        } catch (ArithmeticException e) {
+            // Large or finely scaled prices overflow the basis points; the result itself is small
+            return BigDecimal.valueOf(to).subtract(BigDecimal.valueOf(from))
+                    .multiply(BigDecimal.valueOf(100))
+                    .divide(BigDecimal.valueOf(from), PERCENT_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Percent change between two quotes, computed at the scale of the more precise one
+     */
+    public static BigDecimal percentChange(BigDecimal from, BigDecimal to) {
+        if (from == null || to == null) {
+            return null;
+        }
+        int scale = scaleFor(from, to);
+        return percentChange(fromBigDecimal(from, scale), fromBigDecimal(to, scale));
+    }
+
+    /**
+     * Mean of the given prices at the scale of the most precise one, rounded half-up, or null
+     * if there are none. Null prices are skipped.
+     */
+    public static BigDecimal average(Collection<BigDecimal> values) {
+        BigDecimal[] prices = values.stream().filter(Objects::nonNull).toArray(BigDecimal[]::new);
+        if (prices.length == 0) {
+            return null;
+        }
+        int scale = scaleFor(prices);
+        long sum = 0;
+        try {
+            for (BigDecimal price : prices) {
+                sum = Math.addExact(sum, fromBigDecimal(price, scale));
+            }
+            return toBigDecimal(divideHalfUp(sum, prices.length), scale);
+        } catch (ArithmeticException e) {
+            // The sum outgrew a long
+            BigDecimal exactSum = BigDecimal.ZERO;
+            for (BigDecimal price : prices) {
+                exactSum = exactSum.add(price);
+            }
+            return exactSum.divide(BigDecimal.valueOf(prices.length), scale, RoundingMode.HALF_UP);
+        }
+    }
+}
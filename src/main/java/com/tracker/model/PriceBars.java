@@ -0,0 +1,55 @@
+package com.tracker.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class PriceBars {
+    private String symbol;
+    private String currency;
+    private String interval;
+    private List<Bar> bars;
+    private int totalBars;
+
+    @Data
+    @Builder
+    public static class Bar {
+        private Instant startTime;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private long count;
+    }
+
+    @Getter
+    public enum Interval {
+        ONE_MINUTE("1m", 60_000L),
+        FIVE_MINUTES("5m", 300_000L),
+        ONE_HOUR("1h", 3_600_000L),
+        ONE_DAY("1d", 86_400_000L);
+
+        private final String code;
+        private final long millis;
+
+        Interval(String code, long millis) {
+            this.code = code;
+            this.millis = millis;
+        }
+
+        public static Interval fromCode(String code) {
+            for (Interval interval : values()) {
+                if (interval.code.equalsIgnoreCase(code)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Invalid interval: " + code + ". Supported intervals: 1m, 5m, 1h, 1d");
+        }
+    }
+}
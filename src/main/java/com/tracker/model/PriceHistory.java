@@ -1,5 +1,6 @@
 package com.tracker.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -14,6 +15,8 @@ public class PriceHistory {
     private String currency;
     private List<PricePoint> history;
     private int totalRecords;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 
     @Data
     @Builder
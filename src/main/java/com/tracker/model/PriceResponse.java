@@ -17,4 +17,6 @@ public class PriceResponse {
     private BigDecimal buyPrice;
     private BigDecimal sellPrice;
     private Instant timestamp;
+    private Boolean stale;
+    private Instant asOf;
 }
@@ -0,0 +1,27 @@
+package com.tracker.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Value
+@Builder
+public class TickerQuote {
+    String symbol;
+    BigDecimal spotPrice;
+    BigDecimal buyPrice;
+    BigDecimal sellPrice;
+    Instant time;
+    Instant receivedAt;
+
+    public BigDecimal getPrice(String priceType) {
+        return switch (priceType) {
+            case "spot" -> spotPrice;
+            case "buy" -> buyPrice;
+            case "sell" -> sellPrice;
+            default -> throw new IllegalArgumentException("Unknown price type: " + priceType);
+        };
+    }
+}
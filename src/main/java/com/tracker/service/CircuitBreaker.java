@@ -0,0 +1,172 @@
+package com.tracker.service;
+
+import com.tracker.exception.UpstreamUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate or slow-call rate over the last
+ * {@code windowSize} calls crosses its threshold, rejects calls while open, then lets a few
+ * probe calls through (half-open) and closes again only if all of them succeed.
+ */
+@Slf4j
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final byte[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                   double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.outcomes = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Guard a call with the breaker. Rejected calls fail with {@link UpstreamUnavailableException}.
+     * Only errors matching {@code isFailure} count against the upstream; any other error means
+     * the upstream answered and is recorded like a success.
+     */
+    <T> Mono<T> protect(Mono<T> call, Predicate<Throwable> isFailure) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Mono.error(new UpstreamUnavailableException(name));
+            }
+
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> onComplete(true, System.nanoTime() - start))
+                    .doOnError(e -> onComplete(!isFailure.test(e), System.nanoTime() - start))
+                    .doOnCancel(this::releasePermission);
+        });
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    private synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    private synchronized void onComplete(boolean success, long elapsedNanos) {
+        byte outcome = !success ? FAILURE : elapsedNanos > slowCallNanos ? SLOW : SUCCESS;
+
+        if (state == State.HALF_OPEN) {
+            if (outcome != SUCCESS) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (recorded == outcomes.length) {
+            forget(outcomes[next]);
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        if (outcome == FAILURE) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+
+        if (recorded >= minimumCalls
+                && ((double) failures / recorded >= failureRateThreshold
+                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failures--;
+        } else if (outcome == SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Circuit breaker '{}' transitioning from {} to {}", name, state, newState);
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (newState != State.HALF_OPEN) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads {@code data.amount} from a Coinbase price response with a streaming parser,
+ * skipping everything else instead of binding the whole response to a model. See
+ * {@code CoinbasePriceDecoderBenchmark} in src/jmh for the comparison with ObjectMapper binding.
+ */
+final class CoinbasePriceDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CoinbasePriceDecoder() {
+    }
+
+    /**
+     * Decode the amount and release the buffer. Returns null when the response has no amount.
+     */
+    static BigDecimal decodeAmount(DataBuffer buffer) {
+        try (JsonParser parser = JSON_FACTORY.createParser(buffer.asInputStream(true))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    return readAmount(parser);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Malformed response from Coinbase API: " + e.getMessage());
+        }
+    }
+
+    private static BigDecimal readAmount(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("amount".equals(field)) {
+                if (value == JsonToken.VALUE_STRING) {
+                    // Parse straight from the parser's char buffer to avoid an intermediate String
+                    return new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                }
+                if (value.isNumeric()) {
+                    return parser.getDecimalValue();
+                }
+                return null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
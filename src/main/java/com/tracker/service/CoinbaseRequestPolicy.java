@@ -0,0 +1,186 @@
+package com.tracker.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Shared policy for outbound Coinbase REST calls: a circuit breaker, a token-bucket rate
+ * limit, jittered retries of 429/5xx/connection errors bounded by a global retry budget,
+ * and optional hedged requests once a call runs longer than the observed p95 latency.
+ */
+@Slf4j
+@Component
+public class CoinbaseRequestPolicy {
+
+    @Value("${coinbase.api.rate-limit.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    @Value("${coinbase.api.rate-limit.burst:10}")
+    private int burst;
+
+    @Value("${coinbase.api.rate-limit.max-wait-millis:2000}")
+    private long maxWaitMillis;
+
+    @Value("${coinbase.api.retry.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${coinbase.api.retry.initial-backoff-millis:100}")
+    private long initialBackoffMillis;
+
+    @Value("${coinbase.api.retry.max-backoff-millis:2000}")
+    private long maxBackoffMillis;
+
+    @Value("${coinbase.api.retry.budget-ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${coinbase.api.retry.budget-max:10}")
+    private double retryBudgetMax;
+
+    @Value("${coinbase.api.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${coinbase.api.hedge.min-delay-millis:50}")
+    private long minHedgeDelayMillis;
+
+    @Value("${coinbase.api.circuit-breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${coinbase.api.circuit-breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${coinbase.api.circuit-breaker.failure-rate-threshold:0.5}")
+    private double breakerFailureRateThreshold;
+
+    @Value("${coinbase.api.circuit-breaker.slow-call-rate-threshold:0.5}")
+    private double breakerSlowCallRateThreshold;
+
+    @Value("${coinbase.api.circuit-breaker.slow-call-millis:2000}")
+    private long breakerSlowCallMillis;
+
+    @Value("${coinbase.api.circuit-breaker.open-seconds:30}")
+    private long breakerOpenSeconds;
+
+    @Value("${coinbase.api.circuit-breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+
+    private TokenBucketRateLimiter rateLimiter;
+    private RetryBudget retryBudget;
+    private CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new TokenBucketRateLimiter(requestsPerSecond, burst, Duration.ofMillis(maxWaitMillis));
+        retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMax);
+        circuitBreaker = new CircuitBreaker("Coinbase API", breakerWindowSize, breakerMinimumCalls,
+                breakerFailureRateThreshold, breakerSlowCallRateThreshold,
+                Duration.ofMillis(breakerSlowCallMillis), Duration.ofSeconds(breakerOpenSeconds), breakerHalfOpenCalls);
+    }
+
+    /**
+     * Run a Coinbase call under the circuit breaker, rate limit, retry and hedging policy.
+     * The supplier is invoked once per attempt. The breaker guards and times each HTTP attempt
+     * on its own, after the rate limit has let it through, so local queueing and retry backoff
+     * never count as slow calls. Only upstream failures (429, 5xx, timeouts and connection
+     * errors) count against it; a 404 for an unknown symbol does not. Only the original request
+     * deposits into the retry budget, not its retries.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        Mono<T> attempt = Mono.defer(() -> acquirePermit()
+                .then(circuitBreaker.protect(timed(Mono.defer(call)), this::isRetryable)));
+
+        return Mono.defer(() -> {
+            retryBudget.recordRequest();
+            return Mono.defer(() -> hedgeEnabled ? hedged(attempt) : attempt)
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(initialBackoffMillis))
+                            .maxBackoff(Duration.ofMillis(maxBackoffMillis))
+                            .jitter(0.5)
+                            .filter(e -> isRetryable(e) && withdrawRetry(e))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        });
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public double getRetryBudgetBalance() {
+        return retryBudget.getBalance();
+    }
+
+    private Mono<Void> acquirePermit() {
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos < 0) {
+            return Mono.error(new RuntimeException("Coinbase request rate limit exceeded"));
+        }
+        return waitNanos == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnSuccess(value -> latencyTracker.record(System.nanoTime() - start));
+        });
+    }
+
+    private <T> Mono<T> hedged(Mono<T> attempt) {
+        long p95Nanos = latencyTracker.getP95Nanos();
+        if (p95Nanos < 0) {
+            return attempt;
+        }
+
+        Duration delay = Duration.ofNanos(Math.max(p95Nanos, Duration.ofMillis(minHedgeDelayMillis).toNanos()));
+        return Mono.defer(() -> {
+            AtomicReference<Throwable> primaryFailure = new AtomicReference<>();
+            Mono<T> primary = attempt.doOnError(primaryFailure::set);
+            // The hedge only starts if the primary is still running and the budget allows it
+            Mono<T> hedge = Mono.delay(delay)
+                    .filter(tick -> primaryFailure.get() == null && retryBudget.tryWithdraw())
+                    .flatMap(tick -> attempt);
+
+            // The first value wins, so a failing attempt never cancels one still in flight.
+            // If neither yields a value, the primary's failure is what gets retried or reported.
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorResume(NoSuchElementException.class, e -> primaryFailure.get() != null
+                            ? Mono.error(primaryFailure.get())
+                            : Mono.empty());
+        });
+    }
+
+    private boolean withdrawRetry(Throwable e) {
+        if (retryBudget.tryWithdraw()) {
+            log.debug("Retrying Coinbase request after: {}", e.getMessage());
+            return true;
+        }
+        log.warn("Coinbase retry budget exhausted, not retrying: {}", e.getMessage());
+        return false;
+    }
+
+    private boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+}
@@ -1,26 +1,85 @@
 package com.tracker.service;
 
-import com.tracker.model.CoinbaseApiResponse;
+import com.tracker.config.ConnectionPoolMetricsRegistrar;
 import com.tracker.model.PriceResponse;
+import com.tracker.model.TickerQuote;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 public class CoinbaseService {
 
+    private static final String PRICE_CACHE = "prices";
+
     private final WebClient webClient;
+    private final CaffeineCache priceCache;
+    private final ConnectionPoolMetricsRegistrar poolMetrics;
+    private final LastPriceBook lastPriceBook;
+    private final CoinbaseRequestPolicy requestPolicy;
+    private final Map<String, CompletableFuture<PriceResponse>> refreshes = new ConcurrentHashMap<>();
+
+    /** Last prices fetched per symbol, served as stale while the upstream is slow or failing */
+    private Cache<String, PriceResponse> lastKnownPrices;
+
+    @Value("${cache.price.ttl-seconds:30}")
+    private long priceCacheTtlSeconds;
+
+    @Value("${coinbase.api.stale-while-revalidate.max-age-minutes:15}")
+    private long staleMaxAgeMinutes;
+
+    @Value("${coinbase.api.stale-while-revalidate.max-symbols:1000}")
+    private long staleMaxSymbols;
+
+    @Value("${coinbase.api.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    @Value("${coinbase.api.batch.symbol-timeout-seconds:5}")
+    private int batchSymbolTimeoutSeconds;
+
+    public CoinbaseService(WebClient coinbaseWebClient,
+                           CacheManager cacheManager,
+                           ConnectionPoolMetricsRegistrar poolMetrics,
+                           LastPriceBook lastPriceBook,
+                           CoinbaseRequestPolicy requestPolicy) {
+        this.webClient = coinbaseWebClient;
+        this.poolMetrics = poolMetrics;
+        this.lastPriceBook = lastPriceBook;
+        this.requestPolicy = requestPolicy;
+        this.priceCache = (CaffeineCache) Objects.requireNonNull(cacheManager.getCache(PRICE_CACHE),
+                "Cache '" + PRICE_CACHE + "' is not configured");
+    }
 
-    public CoinbaseService(@Value("${coinbase.api.base-url:https://api.coinbase.com/v2}") String baseUrl) {
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .defaultHeader("Accept", "application/json")
+    @PostConstruct
+    public void init() {
+        lastKnownPrices = Caffeine.newBuilder()
+                .maximumSize(staleMaxSymbols)
+                .expireAfterWrite(Duration.ofMinutes(staleMaxAgeMinutes))
                 .build();
     }
 
@@ -37,47 +96,274 @@ public class CoinbaseService {
     }
 
     public PriceResponse getAllPrices(String symbol) {
+        return getAllPricesAsync(symbol).block();
+    }
+
+    /**
+     * Fetch spot, buy and sell prices concurrently and combine them into a single response.
+     * A fresh quote from the streaming ticker feed is served without calling the REST API.
+     * Once a symbol has been fetched, reads never wait on Coinbase again: last-known prices
+     * younger than the price cache TTL are served as they are, older ones are served marked
+     * stale while one background refresh per symbol brings them up to date. No refresh is
+     * started while the circuit is open. Meant for user-facing reads; callers that persist
+     * prices use {@link #getCurrentPricesAsync}.
+     */
+    public Mono<PriceResponse> getAllPricesAsync(String symbol) {
         String[] parts = parseSymbol(symbol);
         String base = parts[0];
         String currency = parts[1];
 
-        BigDecimal spotPrice = getSpotPrice(symbol);
-        BigDecimal buyPrice = getBuyPrice(symbol);
-        BigDecimal sellPrice = getSellPrice(symbol);
+        Optional<TickerQuote> quote = lastPriceBook.getFresh(normalizeSymbol(symbol));
+        if (quote.isPresent() && isComplete(quote.get())) {
+            return Mono.just(fromQuote(base, currency, quote.get()));
+        }
+
+        String normalizedSymbol = normalizeSymbol(symbol);
+        PriceResponse lastKnown = lastKnownPrices.getIfPresent(normalizedSymbol);
+        if (lastKnown == null) {
+            return Mono.fromFuture(() -> refresh(normalizedSymbol, base, currency), true);
+        }
+
+        if (lastKnown.getTimestamp().isAfter(Instant.now().minusSeconds(priceCacheTtlSeconds))) {
+            return Mono.just(lastKnown);
+        }
+
+        // Stale-while-revalidate: answer now, and never call a known-bad upstream
+        return Mono.fromSupplier(() -> {
+            if (!requestPolicy.isCircuitOpen()) {
+                refreshInBackground(normalizedSymbol, base, currency);
+            }
+            return asStale(lastKnown);
+        });
+    }
+
+    /**
+     * Current prices for a symbol, never last-known ones: waits for the refresh however long the
+     * rate limiter queues it, and fails if it fails. For callers that persist prices.
+     */
+    public Mono<PriceResponse> getCurrentPricesAsync(String symbol) {
+        String[] parts = parseSymbol(symbol);
+        String base = parts[0];
+        String currency = parts[1];
+
+        Optional<TickerQuote> quote = lastPriceBook.getFresh(normalizeSymbol(symbol));
+        if (quote.isPresent() && isComplete(quote.get())) {
+            return Mono.just(fromQuote(base, currency, quote.get()));
+        }
+        return Mono.fromFuture(() -> refresh(normalizeSymbol(symbol), base, currency), true);
+    }
+
+    public PriceResponse getCurrentPrices(String symbol) {
+        return getCurrentPricesAsync(symbol).block();
+    }
+
+    /**
+     * Prices fetched from Coinbase now, bypassing the price cache, for periodic samplers: a
+     * sampler reading through the cache would record a cached quote again under a new time.
+     * The fetched prices refresh the cache and the last-known prices for everyone else.
+     */
+    public PriceResponse getLivePrices(String symbol) {
+        String[] parts = parseSymbol(symbol);
+        String normalizedSymbol = normalizeSymbol(symbol);
+
+        return Mono.zip(
+                        fetchLivePrice(normalizedSymbol, "spot"),
+                        fetchLivePrice(normalizedSymbol, "buy"),
+                        fetchLivePrice(normalizedSymbol, "sell"))
+                .map(prices -> PriceResponse.builder()
+                        .symbol(parts[0])
+                        .currency(parts[1])
+                        .spotPrice(prices.getT1())
+                        .buyPrice(prices.getT2())
+                        .sellPrice(prices.getT3())
+                        .timestamp(Instant.now())
+                        .build())
+                .doOnNext(prices -> lastKnownPrices.put(normalizedSymbol, prices))
+                .block();
+    }
+
+    /**
+     * Prices from a fresh, complete ticker feed quote, without calling the REST API
+     */
+    public Optional<PriceResponse> getStreamedPrices(String symbol) {
+        String[] parts = parseSymbol(symbol);
+        return lastPriceBook.getFresh(normalizeSymbol(symbol))
+                .filter(this::isComplete)
+                .map(quote -> fromQuote(parts[0], parts[1], quote));
+    }
 
+    public String getCircuitState() {
+        return requestPolicy.getCircuitState();
+    }
+
+    /**
+     * Sustained rate of REST calls the client-side limiter allows
+     */
+    public double getRequestsPerSecond() {
+        return requestPolicy.getRequestsPerSecond();
+    }
+
+    /**
+     * Fetch all prices for many symbols with bounded concurrency. Symbols that fail or time out
+     * are logged and left out of the result; the map preserves the input order.
+     */
+    public Map<String, PriceResponse> getAllPrices(Collection<String> symbols) {
+        return getBatch(symbols, this::getAllPricesAsync);
+    }
+
+    /**
+     * Batch variant of {@link #getCurrentPricesAsync(String)}, for callers that persist prices
+     */
+    public Map<String, PriceResponse> getCurrentPrices(Collection<String> symbols) {
+        return getBatch(symbols, this::getCurrentPricesAsync);
+    }
+
+    private Map<String, PriceResponse> getBatch(Collection<String> symbols, Function<String, Mono<PriceResponse>> fetch) {
+        return Flux.fromIterable(symbols)
+                .flatMapSequential(symbol -> Mono.defer(() -> fetch.apply(symbol))
+                                .timeout(Duration.ofSeconds(batchSymbolTimeoutSeconds))
+                                .map(prices -> Tuples.of(symbol, prices))
+                                .onErrorResume(e -> {
+                                    log.warn("Failed to get prices for {} in batch: {}", symbol, e.getMessage());
+                                    return Mono.empty();
+                                }),
+                        batchConcurrency)
+                .collect(LinkedHashMap<String, PriceResponse>::new, (map, entry) -> map.put(entry.getT1(), entry.getT2()))
+                .block();
+    }
+
+    /**
+     * Start a refresh of all prices for a symbol, or join the one already in flight. The refresh
+     * runs to completion even if the caller stops waiting, and updates the last-known prices.
+     */
+    private CompletableFuture<PriceResponse> refresh(String normalizedSymbol, String base, String currency) {
+        CompletableFuture<PriceResponse> future = refreshes.computeIfAbsent(normalizedSymbol, key -> Mono.zip(
+                        fetchPriceAsync(key, "spot"),
+                        fetchPriceAsync(key, "buy"),
+                        fetchPriceAsync(key, "sell"))
+                .map(prices -> PriceResponse.builder()
+                        .symbol(base)
+                        .currency(currency)
+                        .spotPrice(prices.getT1())
+                        .buyPrice(prices.getT2())
+                        .sellPrice(prices.getT3())
+                        .timestamp(Instant.now())
+                        .build())
+                .doOnNext(prices -> lastKnownPrices.put(key, prices))
+                .toFuture());
+
+        future.whenComplete((prices, e) -> refreshes.remove(normalizedSymbol, future));
+        return future;
+    }
+
+    /**
+     * Start a refresh nobody waits for, unless one is already in flight for the symbol
+     */
+    private void refreshInBackground(String normalizedSymbol, String base, String currency) {
+        if (refreshes.containsKey(normalizedSymbol)) {
+            return;
+        }
+        refresh(normalizedSymbol, base, currency).exceptionally(e -> {
+            log.warn("Background refresh of {} failed, serving last-known prices: {}", normalizedSymbol, e.getMessage());
+            return null;
+        });
+    }
+
+    private PriceResponse fromQuote(String base, String currency, TickerQuote quote) {
         return PriceResponse.builder()
                 .symbol(base)
                 .currency(currency)
-                .spotPrice(spotPrice)
-                .buyPrice(buyPrice)
-                .sellPrice(sellPrice)
+                .spotPrice(quote.getSpotPrice())
+                .buyPrice(quote.getBuyPrice())
+                .sellPrice(quote.getSellPrice())
+                .timestamp(quote.getTime() != null ? quote.getTime() : quote.getReceivedAt())
+                .build();
+    }
+
+    private PriceResponse asStale(PriceResponse lastKnown) {
+        return PriceResponse.builder()
+                .symbol(lastKnown.getSymbol())
+                .currency(lastKnown.getCurrency())
+                .spotPrice(lastKnown.getSpotPrice())
+                .buyPrice(lastKnown.getBuyPrice())
+                .sellPrice(lastKnown.getSellPrice())
                 .timestamp(Instant.now())
+                .stale(true)
+                .asOf(lastKnown.getTimestamp())
                 .build();
     }
 
     private BigDecimal fetchPrice(String symbol, String priceType) {
-        try {
-            String normalizedSymbol = normalizeSymbol(symbol);
-            String path = String.format("/prices/%s/%s", normalizedSymbol, priceType);
-
-            log.debug("Fetching {} price for symbol: {}", priceType, normalizedSymbol);
+        return fetchPriceAsync(symbol, priceType).block();
+    }
 
-            CoinbaseApiResponse response = webClient.get()
-                    .uri(path)
-                    .retrieve()
-                    .bodyToMono(CoinbaseApiResponse.class)
-                    .block();
+    /**
+     * Get hit/miss statistics for the price cache
+     */
+    public Map<String, Object> getPriceCacheStats() {
+        CacheStats stats = priceCache.getNativeCache().stats();
+        return Map.of(
+                "cache", PRICE_CACHE,
+                "size", priceCache.getNativeCache().estimatedSize(),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "loadSuccessCount", stats.loadSuccessCount(),
+                "loadFailureCount", stats.loadFailureCount(),
+                "evictionCount", stats.evictionCount()
+        );
+    }
 
-            if (response != null && response.getData() != null) {
-                return new BigDecimal(response.getData().getAmount());
-            }
+    /**
+     * Get allocation and pending-acquire gauges for the Coinbase connection pool
+     */
+    public Map<String, Object> getConnectionPoolStats() {
+        return poolMetrics.snapshot();
+    }
 
-            throw new RuntimeException("Empty response from Coinbase API");
-        } catch (WebClientResponseException e) {
-            log.error("Coinbase API error for {} {}: {} - {}",
-                    priceType, symbol, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new RuntimeException("Failed to fetch " + priceType + " price: " + e.getMessage());
+    /**
+     * Serve a price from the cache. Concurrent misses for the same symbol and price type
+     * share a single in-flight Coinbase request; failed loads are not cached.
+     */
+    private Mono<BigDecimal> fetchPriceAsync(String symbol, String priceType) {
+        BigDecimal streamed = lastPriceBook.getFresh(normalizeSymbol(symbol))
+                .map(quote -> quote.getPrice(priceType))
+                .orElse(null);
+        if (streamed != null) {
+            return Mono.just(streamed);
         }
+
+        String cacheKey = normalizeSymbol(symbol) + ":" + priceType;
+        return Mono.fromFuture(() -> priceCache.retrieve(cacheKey,
+                () -> fetchPriceFromCoinbase(symbol, priceType).toFuture()), true);
+    }
+
+    private Mono<BigDecimal> fetchLivePrice(String normalizedSymbol, String priceType) {
+        return fetchPriceFromCoinbase(normalizedSymbol, priceType)
+                .doOnNext(price -> priceCache.put(normalizedSymbol + ":" + priceType, price));
+    }
+
+    private Mono<BigDecimal> fetchPriceFromCoinbase(String symbol, String priceType) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        String path = String.format("/prices/%s/%s", normalizedSymbol, priceType);
+
+        log.debug("Fetching {} price for symbol: {}", priceType, normalizedSymbol);
+
+        return requestPolicy.execute(() -> webClient.get()
+                        .uri(path)
+                        .retrieve()
+                        .bodyToMono(DataBuffer.class)
+                        .mapNotNull(CoinbasePriceDecoder::decodeAmount))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response from Coinbase API")))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    log.error("Coinbase API error for {} {}: {} - {}",
+                            priceType, symbol, e.getStatusCode(), e.getResponseBodyAsString());
+                    return new RuntimeException("Failed to fetch " + priceType + " price: " + e.getMessage());
+                });
+    }
+
+    private boolean isComplete(TickerQuote quote) {
+        return quote.getSpotPrice() != null && quote.getBuyPrice() != null && quote.getSellPrice() != null;
     }
 
     private String normalizeSymbol(String symbol) {
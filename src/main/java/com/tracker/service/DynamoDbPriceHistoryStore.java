@@ -0,0 +1,356 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Price history in the DynamoDB price-history table. Batches go through
+ * {@link PriceRecordBatchWriter}, and reads use an explicit page size and optional projections.
+ * Records can be partitioned by symbol alone or by symbol and UTC day
+ * ({@code price-history.partition-by-day}).
+ */
+@Component
+@ConditionalOnProperty(name = "price-history.store", havingValue = "dynamodb", matchIfMissing = true)
+public class DynamoDbPriceHistoryStore implements PriceHistoryStore {
+
+    private static final Expression NEW_ITEM_CONDITION = Expression.builder()
+            .expression("attribute_not_exists(#symbol)")
+            .putExpressionName("#symbol", "symbol")
+            .build();
+
+    private final DynamoDbTable<PriceRecord> priceRecordTable;
+    private final DynamoDbAsyncTable<PriceRecord> priceRecordAsyncTable;
+    private final PriceRecordBatchWriter batchWriter;
+
+    @Value("${price-history.query.page-size:100}")
+    private int queryPageSize;
+
+    @Value("${price-history.partition-by-day:false}")
+    private boolean partitionByDay;
+
+    @Value("${price-history.query.max-parallel-partitions:4}")
+    private int maxParallelPartitions;
+
+    public DynamoDbPriceHistoryStore(DynamoDbTable<PriceRecord> priceRecordTable,
+                                     DynamoDbAsyncTable<PriceRecord> priceRecordAsyncTable,
+                                     PriceRecordBatchWriter batchWriter) {
+        this.priceRecordTable = priceRecordTable;
+        this.priceRecordAsyncTable = priceRecordAsyncTable;
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public boolean appendIfAbsent(PriceRecord record) {
+        try {
+            priceRecordTable.putItem(PutItemEnhancedRequest.builder(PriceRecord.class)
+                    .item(storedRecord(record))
+                    .conditionExpression(NEW_ITEM_CONDITION)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> appendIfAbsentAsync(PriceRecord record) {
+        return priceRecordAsyncTable.putItem(PutItemEnhancedRequest.builder(PriceRecord.class)
+                        .item(storedRecord(record))
+                        .conditionExpression(NEW_ITEM_CONDITION)
+                        .build())
+                .thenApply(done -> true)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof ConditionalCheckFailedException) {
+                        return false;
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
+    }
+
+    /**
+     * Written with BatchWriteItem, 25 items per request; see {@link PriceRecordBatchWriter}
+     */
+    @Override
+    public List<PriceRecord> appendAll(Collection<PriceRecord> records) {
+        Map<String, PriceRecord> recordsByStoredKey = new HashMap<>();
+        List<PriceRecord> stored = new ArrayList<>();
+        for (PriceRecord record : records) {
+            PriceRecord storedRecord = storedRecord(record);
+            recordsByStoredKey.put(PriceRecordBatchWriter.keyOf(storedRecord), record);
+            stored.add(storedRecord);
+        }
+
+        // Unprocessed items come back as new objects, so map them to the caller's records by key
+        return batchWriter.writeAll(stored).stream()
+                .map(unwritten -> recordsByStoredKey.get(PriceRecordBatchWriter.keyOf(unwritten)))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Buffered by {@link PriceRecordBatchWriter}, so concurrent single writes share a
+     * BatchWriteItem request
+     */
+    @Override
+    public CompletableFuture<Void> appendAsync(PriceRecord record) {
+        return batchWriter.enqueue(storedRecord(record));
+    }
+
+    @Override
+    public List<PriceRecord> range(String normalizedSymbol, Instant from, Instant to, String... attributes) {
+        if (partitionByDay) {
+            return join(rangeAsync(normalizedSymbol, from, to, attributes));
+        }
+
+        List<PriceRecord> records = new ArrayList<>();
+        priceRecordTable.query(rangeQuery(normalizedSymbol, from, to, attributes)).items().forEach(records::add);
+        return records;
+    }
+
+    /**
+     * Query planner: one query per partition the range touches, with at most
+     * {@code price-history.query.max-parallel-partitions} of them in flight, so a month-long
+     * range does not take over the async client's connections. The partitions are disjoint and
+     * ordered in time, so concatenating them in order keeps the records oldest first.
+     */
+    @Override
+    public CompletableFuture<List<PriceRecord>> rangeAsync(String normalizedSymbol, Instant from, Instant to,
+                                                           String... attributes) {
+        List<String> partitionKeys = partitionKeys(normalizedSymbol, from, to);
+        List<List<PriceRecord>> partitions = new ArrayList<>(Collections.nCopies(partitionKeys.size(), List.of()));
+        AtomicInteger next = new AtomicInteger();
+
+        int lanes = Math.min(Math.max(1, maxParallelPartitions), partitionKeys.size());
+        CompletableFuture<?>[] queries = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            queries[i] = queryPartitionsAsync(normalizedSymbol, partitionKeys, partitions, next, from, to, attributes);
+        }
+
+        return CompletableFuture.allOf(queries).thenApply(done -> {
+            List<PriceRecord> records = new ArrayList<>();
+            partitions.forEach(records::addAll);
+            return records;
+        });
+    }
+
+    /**
+     * Walks the partitions newest first, reading each newest first, and stops once the limit
+     * is reached
+     */
+    @Override
+    public CompletableFuture<List<PriceRecord>> recentAsync(String normalizedSymbol, Instant from, Instant to,
+                                                            int limit, String... attributes) {
+        List<String> partitions = partitionKeys(normalizedSymbol, from, to);
+        List<PriceRecord> newestFirst = new ArrayList<>();
+        return recentAsync(normalizedSymbol, partitions, partitions.size() - 1, from, to, limit, newestFirst, attributes)
+                .thenApply(done -> {
+                    Collections.reverse(newestFirst);
+                    return newestFirst;
+                });
+    }
+
+    @Override
+    public PriceRecord latest(String normalizedSymbol, Instant from, Instant to) {
+        List<String> partitions = partitionKeys(normalizedSymbol, from, to);
+
+        // Newest partition first, each read newest first with a page of one item
+        for (int i = partitions.size() - 1; i >= 0; i--) {
+            PriceRecord latest = priceRecordTable.query(latestQuery(partitions.get(i), from, to)).items().stream()
+                    .findFirst()
+                    .orElse(null);
+            if (latest != null) {
+                latest.setSymbol(normalizedSymbol);
+                return latest;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<PriceRecord> latestAsync(String normalizedSymbol, Instant from, Instant to) {
+        List<String> partitions = partitionKeys(normalizedSymbol, from, to);
+        return latestAsync(normalizedSymbol, partitions, partitions.size() - 1, from, to);
+    }
+
+    /**
+     * Newest record in the partitions up to {@code index}, trying the newest partition first
+     */
+    private CompletableFuture<PriceRecord> latestAsync(String normalizedSymbol, List<String> partitions,
+                                                       int index, Instant from, Instant to) {
+        if (index < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        AtomicReference<PriceRecord> latest = new AtomicReference<>();
+        return priceRecordAsyncTable.query(latestQuery(partitions.get(index), from, to)).items()
+                .limit(1)
+                .subscribe(latest::set)
+                .thenCompose(done -> {
+                    PriceRecord record = latest.get();
+                    if (record == null) {
+                        return latestAsync(normalizedSymbol, partitions, index - 1, from, to);
+                    }
+                    record.setSymbol(normalizedSymbol);
+                    return CompletableFuture.completedFuture(record);
+                });
+    }
+
+    /**
+     * One lane of the query planner: queries the next unclaimed partition until none are left,
+     * storing each result at its partition's index
+     */
+    private CompletableFuture<Void> queryPartitionsAsync(String normalizedSymbol, List<String> partitionKeys,
+                                                         List<List<PriceRecord>> partitions, AtomicInteger next,
+                                                         Instant from, Instant to, String... attributes) {
+        int index = next.getAndIncrement();
+        if (index >= partitionKeys.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return queryPartitionAsync(normalizedSymbol, partitionKeys.get(index), from, to, attributes)
+                .thenCompose(records -> {
+                    partitions.set(index, records);
+                    return queryPartitionsAsync(normalizedSymbol, partitionKeys, partitions, next, from, to, attributes);
+                });
+    }
+
+    /**
+     * Add the newest records of the partitions up to {@code index} to {@code newestFirst} until
+     * it holds {@code limit} records
+     */
+    private CompletableFuture<Void> recentAsync(String normalizedSymbol, List<String> partitions, int index,
+                                                Instant from, Instant to, int limit, List<PriceRecord> newestFirst,
+                                                String... attributes) {
+        int remaining = limit - newestFirst.size();
+        if (index < 0 || remaining <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(between(partitions.get(index), from, to))
+                .scanIndexForward(false)
+                .limit(Math.min(remaining, queryPageSize));
+        if (attributes.length > 0) {
+            request.attributesToProject(attributes);
+        }
+        return priceRecordAsyncTable.query(request.build()).items()
+                .limit(remaining)
+                .subscribe(record -> {
+                    record.setSymbol(normalizedSymbol);
+                    newestFirst.add(record);
+                })
+                .thenCompose(done -> recentAsync(normalizedSymbol, partitions, index - 1, from, to, limit,
+                        newestFirst, attributes));
+    }
+
+    private CompletableFuture<List<PriceRecord>> queryPartitionAsync(String normalizedSymbol, String partitionKey,
+                                                                     Instant from, Instant to, String... attributes) {
+        List<PriceRecord> records = new ArrayList<>();
+        return priceRecordAsyncTable.query(rangeQuery(partitionKey, from, to, attributes)).items()
+                .subscribe(record -> {
+                    record.setSymbol(normalizedSymbol);
+                    records.add(record);
+                })
+                .thenApply(done -> records);
+    }
+
+    /**
+     * Partition keys holding a symbol's records between {@code from} and {@code to}, oldest
+     * first. With day partitioning that is one {@code SYMBOL#yyyy-MM-dd} key per UTC day.
+     */
+    private List<String> partitionKeys(String normalizedSymbol, Instant from, Instant to) {
+        if (!partitionByDay) {
+            return List.of(normalizedSymbol);
+        }
+        List<String> keys = new ArrayList<>();
+        LocalDate lastDay = LocalDate.ofInstant(to, ZoneOffset.UTC);
+        for (LocalDate day = LocalDate.ofInstant(from, ZoneOffset.UTC); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            keys.add(normalizedSymbol + "#" + day);
+        }
+        return keys;
+    }
+
+    /**
+     * The record as stored: with day partitioning its partition key carries the UTC day
+     */
+    private PriceRecord storedRecord(PriceRecord record) {
+        if (!partitionByDay) {
+            return record;
+        }
+        LocalDate day = LocalDate.ofInstant(record.getTimestamp(), ZoneOffset.UTC);
+        return record.toBuilder()
+                .symbol(record.getSymbol() + "#" + day)
+                .build();
+    }
+
+    private QueryEnhancedRequest rangeQuery(String partitionKey, Instant from, Instant to, String... attributes) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(between(partitionKey, from, to))
+                .limit(queryPageSize);
+
+        if (attributes.length > 0) {
+            request.attributesToProject(attributes);
+        }
+        return request.build();
+    }
+
+    /**
+     * Newest record of a partition in the range: descending sort key order, one item per page
+     */
+    private QueryEnhancedRequest latestQuery(String partitionKey, Instant from, Instant to) {
+        return QueryEnhancedRequest.builder()
+                .queryConditional(between(partitionKey, from, to))
+                .scanIndexForward(false)
+                .limit(1)
+                .build();
+    }
+
+    private QueryConditional between(String partitionKey, Instant from, Instant to) {
+        return QueryConditional.sortBetween(
+                Key.builder()
+                        .partitionValue(partitionKey)
+                        .sortValue(from.toString())
+                        .build(),
+                Key.builder()
+                        .partitionValue(partitionKey)
+                        .sortValue(to.toString())
+                        .build()
+        );
+    }
+
+    /**
+     * Wait for a future, rethrowing its original failure rather than a CompletionException
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
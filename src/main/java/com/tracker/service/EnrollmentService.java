@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 
@@ -14,6 +15,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -21,6 +23,7 @@ import java.util.List;
 public class EnrollmentService {
 
     private final DynamoDbTable<Enrollment> enrollmentTable;
+    private final DynamoDbAsyncTable<Enrollment> enrollmentAsyncTable;
 
     @Value("${recommendation.minimum-enrollment-days:7}")
     private int minimumEnrollmentDays;
@@ -67,14 +70,29 @@ public class EnrollmentService {
 
     public boolean isRecommendationAvailable(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
-        Enrollment enrollment = getEnrollment(normalizedSymbol);
+        return isRecommendationAvailable(getEnrollment(normalizedSymbol));
+    }
 
-        if (enrollment == null || !Enrollment.Status.ACTIVE.name().equals(enrollment.getStatus())) {
-            return false;
-        }
+    /**
+     * Non-blocking variant of {@link #getEnrollmentStatus(String)}; completes exceptionally with
+     * {@link SymbolNotEnrolledException} if the symbol was never enrolled
+     */
+    public CompletableFuture<EnrollmentResponse> getEnrollmentStatusAsync(String symbol) {
+        return getEnrollmentAsync(normalizeSymbol(symbol)).thenApply(enrollment -> {
+            if (enrollment == null) {
+                throw new SymbolNotEnrolledException(symbol);
+            }
+            return buildEnrollmentResponse(enrollment);
+        });
+    }
 
-        Duration enrollmentDuration = Duration.between(enrollment.getEnrolledAt(), Instant.now());
-        return enrollmentDuration.toDays() >= minimumEnrollmentDays;
+    public CompletableFuture<Boolean> isEnrolledAsync(String symbol) {
+        return getEnrollmentAsync(normalizeSymbol(symbol))
+                .thenApply(enrollment -> enrollment != null && Enrollment.Status.ACTIVE.name().equals(enrollment.getStatus()));
+    }
+
+    public CompletableFuture<Boolean> isRecommendationAvailableAsync(String symbol) {
+        return getEnrollmentAsync(normalizeSymbol(symbol)).thenApply(this::isRecommendationAvailable);
     }
 
     public Instant getRecommendationAvailableDate(String symbol) {
@@ -128,6 +146,22 @@ public class EnrollmentService {
         return enrollmentTable.getItem(key);
     }
 
+    private CompletableFuture<Enrollment> getEnrollmentAsync(String normalizedSymbol) {
+        Key key = Key.builder()
+                .partitionValue(normalizedSymbol)
+                .build();
+        return enrollmentAsyncTable.getItem(key);
+    }
+
+    private boolean isRecommendationAvailable(Enrollment enrollment) {
+        if (enrollment == null || !Enrollment.Status.ACTIVE.name().equals(enrollment.getStatus())) {
+            return false;
+        }
+
+        Duration enrollmentDuration = Duration.between(enrollment.getEnrolledAt(), Instant.now());
+        return enrollmentDuration.toDays() >= minimumEnrollmentDays;
+    }
+
     private EnrollmentResponse buildEnrollmentResponse(Enrollment enrollment) {
         Instant availableAt = enrollment.getEnrolledAt().plus(Duration.ofDays(minimumEnrollmentDays));
         Duration remaining = Duration.between(Instant.now(), availableAt);
@@ -0,0 +1,129 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Price history held in process, for local runs and tests. Each symbol has its own index
+ * sorted by timestamp, so range and latest reads are ordered map lookups. Records are copied
+ * on the way in and out, and expired records are dropped as their TTL passes. Projections are
+ * ignored; whole records are always returned. Nothing survives a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "price-history.store", havingValue = "memory")
+public class InMemoryPriceHistoryStore implements PriceHistoryStore {
+
+    private final Map<String, ConcurrentSkipListMap<Instant, PriceRecord>> recordsBySymbol = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean appendIfAbsent(PriceRecord record) {
+        return index(record.getSymbol()).putIfAbsent(record.getTimestamp(), copyOf(record)) == null;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> appendIfAbsentAsync(PriceRecord record) {
+        return CompletableFuture.completedFuture(appendIfAbsent(record));
+    }
+
+    @Override
+    public List<PriceRecord> appendAll(Collection<PriceRecord> records) {
+        records.forEach(record -> index(record.getSymbol()).put(record.getTimestamp(), copyOf(record)));
+        return new ArrayList<>();
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAsync(PriceRecord record) {
+        appendAll(List.of(record));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<PriceRecord> range(String normalizedSymbol, Instant from, Instant to, String... attributes) {
+        NavigableMap<Instant, PriceRecord> index = liveIndex(normalizedSymbol);
+        if (index == null || from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return index.subMap(from, true, to, true).values().stream()
+                .map(this::copyOf)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public CompletableFuture<List<PriceRecord>> rangeAsync(String normalizedSymbol, Instant from, Instant to,
+                                                           String... attributes) {
+        return CompletableFuture.completedFuture(range(normalizedSymbol, from, to, attributes));
+    }
+
+    @Override
+    public CompletableFuture<List<PriceRecord>> recentAsync(String normalizedSymbol, Instant from, Instant to,
+                                                            int limit, String... attributes) {
+        NavigableMap<Instant, PriceRecord> index = liveIndex(normalizedSymbol);
+        List<PriceRecord> records = new ArrayList<>();
+        if (index != null && !from.isAfter(to)) {
+            index.subMap(from, true, to, true).descendingMap().values().stream()
+                    .limit(limit)
+                    .forEach(record -> records.add(0, copyOf(record)));
+        }
+        return CompletableFuture.completedFuture(records);
+    }
+
+    @Override
+    public PriceRecord latest(String normalizedSymbol, Instant from, Instant to) {
+        NavigableMap<Instant, PriceRecord> index = liveIndex(normalizedSymbol);
+        if (index == null) {
+            return null;
+        }
+        Map.Entry<Instant, PriceRecord> latest = index.floorEntry(to);
+        if (latest == null || latest.getKey().isBefore(from)) {
+            return null;
+        }
+        return copyOf(latest.getValue());
+    }
+
+    @Override
+    public CompletableFuture<PriceRecord> latestAsync(String normalizedSymbol, Instant from, Instant to) {
+        return CompletableFuture.completedFuture(latest(normalizedSymbol, from, to));
+    }
+
+    private ConcurrentSkipListMap<Instant, PriceRecord> index(String normalizedSymbol) {
+        return recordsBySymbol.computeIfAbsent(normalizedSymbol, k -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * A symbol's index with expired records removed, or null if it has none. Records share a
+     * retention period, so the oldest expire first and pruning stops at the first live record.
+     */
+    private NavigableMap<Instant, PriceRecord> liveIndex(String normalizedSymbol) {
+        ConcurrentSkipListMap<Instant, PriceRecord> index = recordsBySymbol.get(normalizedSymbol);
+        if (index == null) {
+            return null;
+        }
+        long nowSeconds = Instant.now().getEpochSecond();
+        for (Map.Entry<Instant, PriceRecord> oldest = index.firstEntry();
+             oldest != null && isExpired(oldest.getValue(), nowSeconds);
+             oldest = index.firstEntry()) {
+            index.remove(oldest.getKey(), oldest.getValue());
+        }
+        return index;
+    }
+
+    private boolean isExpired(PriceRecord record, long nowSeconds) {
+        return record.getTtl() != null && record.getTtl() <= nowSeconds;
+    }
+
+    private PriceRecord copyOf(PriceRecord record) {
+        return record.toBuilder().build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.tracker.service;
+
+import com.tracker.model.TickerQuote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory book of the last streamed quote per symbol. Each symbol holds an atomic
+ * reference to an immutable quote, so reads never block and writers only race on a CAS.
+ */
+@Component
+public class LastPriceBook {
+
+    private final Map<String, AtomicReference<TickerQuote>> quotes = new ConcurrentHashMap<>();
+
+    @Value("${coinbase.feed.max-age-millis:5000}")
+    private long maxAgeMillis;
+
+    public void update(TickerQuote quote) {
+        quotes.computeIfAbsent(quote.getSymbol(), k -> new AtomicReference<>())
+                .accumulateAndGet(quote, LastPriceBook::newest);
+    }
+
+    /**
+     * Get the last quote for a normalized symbol if it was received within the configured max age
+     */
+    public Optional<TickerQuote> getFresh(String normalizedSymbol) {
+        AtomicReference<TickerQuote> ref = quotes.get(normalizedSymbol);
+        if (ref == null) {
+            return Optional.empty();
+        }
+
+        TickerQuote quote = ref.get();
+        if (quote == null || quote.getReceivedAt().isBefore(Instant.now().minus(Duration.ofMillis(maxAgeMillis)))) {
+            return Optional.empty();
+        }
+        return Optional.of(quote);
+    }
+
+    public void remove(String normalizedSymbol) {
+        quotes.remove(normalizedSymbol);
+    }
+
+    private static TickerQuote newest(TickerQuote current, TickerQuote next) {
+        if (current == null || current.getTime() == null || next.getTime() == null) {
+            return next;
+        }
+        return next.getTime().isBefore(current.getTime()) ? current : next;
+    }
+}
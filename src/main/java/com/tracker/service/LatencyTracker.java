@@ -0,0 +1,46 @@
+package com.tracker.service;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a sliding window of recent request latencies and a periodically refreshed
+ * 95th percentile, used to decide when to send a hedged request.
+ */
+class LatencyTracker {
+
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int count;
+    private int next;
+
+    private volatile long p95Nanos = -1;
+
+    void record(long latencyNanos) {
+        long[] snapshot = null;
+
+        synchronized (this) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+
+            if (count >= MIN_SAMPLES && (next % RECOMPUTE_EVERY == 0 || p95Nanos < 0)) {
+                snapshot = Arrays.copyOf(samples, count);
+            }
+        }
+
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            p95Nanos = snapshot[(int) Math.ceil(snapshot.length * 0.95) - 1];
+        }
+    }
+
+    /**
+     * Get the current p95 latency in nanoseconds, or -1 until enough samples are recorded
+     */
+    long getP95Nanos() {
+        return p95Nanos;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tracker.service;
+
+import com.tracker.model.FixedPointPrice;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rolling time window of fixed-point prices that keeps a running sum and count. Reading the
+ * average is O(1) plus the evictions, and each entry is evicted at most once.
+ *
+ * <p>Entries are kept in timestamp order whatever order they arrive in, so a daily record
+ * keyed by the start of its day still counts after that day's samples. One entry is kept per
+ * timestamp, so a record seen both in a storage reload and as a live update is counted once.
+ * Both need a sorted map rather than an append-only deque, so adds and evictions cost
+ * O(log n) instead of O(1); with one entry per record in the window, n stays small.
+ *
+ * <p>Entries share one scale, which widens to keep every decimal place of a new price unless
+ * an older entry would no longer fit a long. The sum is kept in 128 bits, so it never
+ * overflows however many entries the window holds.
+ */
+class MovingAverageWindow {
+
+    private final long windowMillis;
+    private final TreeMap<Long, Long> entries = new TreeMap<>();
+    private int scale;
+    private long sumHigh;
+    private long sumLow;
+
+    MovingAverageWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    synchronized void add(long timestampMillis, BigDecimal price) {
+        if (price == null || entries.containsKey(timestampMillis)) {
+            return;
+        }
+        int priceScale = FixedPointPrice.scaleFor(price);
+        if (priceScale > scale || entries.isEmpty()) {
+            rescale(priceScale);
+        }
+        if (scale > FixedPointPrice.maxScale(price)) {
+            // Too large for the current scale; drop decimal places from every entry instead
+            rescale(priceScale);
+        }
+
+        long value = FixedPointPrice.fromBigDecimal(price, scale);
+        entries.put(timestampMillis, value);
+        addToSum(value);
+    }
+
+    /**
+     * Average of the entries within the window ending at {@code nowMillis}, rounded half-up,
+     * or null if the window is empty
+     */
+    synchronized BigDecimal average(long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        while (!entries.isEmpty() && entries.firstKey() < cutoff) {
+            Map.Entry<Long, Long> evicted = entries.pollFirstEntry();
+            addToSum(-evicted.getValue());
+        }
+        if (entries.isEmpty()) {
+            return null;
+        }
+        if (sumHigh == sumLow >> 63) {
+            return FixedPointPrice.toBigDecimal(FixedPointPrice.divideHalfUp(sumLow, entries.size()), scale);
+        }
+        BigInteger sum = BigInteger.valueOf(sumHigh).shiftLeft(64)
+                .add(new BigInteger(Long.toUnsignedString(sumLow)));
+        return new BigDecimal(sum, scale).divide(BigDecimal.valueOf(entries.size()), scale, RoundingMode.HALF_UP);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Move every entry to a new scale, or keep the current one if an entry would not fit
+     */
+    private void rescale(int newScale) {
+        if (newScale == scale) {
+            return;
+        }
+        long[] values = new long[entries.size()];
+        int i = 0;
+        try {
+            for (long value : entries.values()) {
+                values[i++] = FixedPointPrice.rescale(value, scale, newScale);
+            }
+        } catch (ArithmeticException e) {
+            return;
+        }
+
+        sumHigh = 0;
+        sumLow = 0;
+        i = 0;
+        for (Map.Entry<Long, Long> entry : entries.entrySet()) {
+            entry.setValue(values[i]);
+            addToSum(values[i++]);
+        }
+        scale = newScale;
+    }
+
+    /**
+     * Add a value to the 128-bit sum, carrying out of the low word
+     */
+    private void addToSum(long value) {
+        long low = sumLow + value;
+        sumHigh += (value >> 63) + (Long.compareUnsigned(low, sumLow) < 0 ? 1 : 0);
+        sumLow = low;
+    }
+}
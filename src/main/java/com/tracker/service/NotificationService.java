@@ -13,8 +13,10 @@ import java.text.NumberFormat;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -96,18 +98,30 @@ public class NotificationService {
 
         NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
 
+        // Fetch every symbol in one batch instead of sequentially per symbol. The digest records
+        // the daily prices, so it waits for current prices rather than taking last-known ones.
+        Map<String, PriceResponse> allPrices = coinbaseService.getCurrentPrices(SYMBOLS);
+
+        // Record every price to DynamoDB in one batch write and get change data
+        Map<String, PriceResponse> pricedSymbols = new LinkedHashMap<>();
+        allPrices.forEach((symbol, prices) -> {
+            if (prices.getSpotPrice() != null) {
+                pricedSymbols.put(symbol, prices);
+            }
+        });
+        Map<String, PriceChangeData> changes = priceHistoryService.recordPricesWithChange(pricedSymbols);
+
         for (String symbol : SYMBOLS) {
             try {
-                PriceResponse prices = coinbaseService.getAllPrices(symbol);
+                PriceResponse prices = pricedSymbols.get(symbol);
 
-                if (prices != null && prices.getSpotPrice() != null) {
-                    // Record price to DynamoDB and get change data
-                    PriceChangeData changeData = priceHistoryService.recordPriceWithChange(symbol, prices);
+                if (prices != null) {
+                    PriceChangeData changeData = changes.get(symbol);
 
                     String formattedPrice = formatPrice(prices.getSpotPrice(), currencyFormat);
 
                     // Only show percentage changes after day 1 (when we have previous data)
-                    if (changeData.getDailyChangePercent() != null) {
+                    if (changeData != null && changeData.getDailyChangePercent() != null) {
                         String dailyChange = formatDailyChange(changeData.getDailyChangePercent());
                         String avgChange = formatAvgChange(changeData.getAvgChangePercent(), changeData.getDaysOfData());
                         message.append(String.format("%s: %s %s %s\n", symbol, formattedPrice, dailyChange, avgChange));
@@ -0,0 +1,188 @@
+package com.tracker.service;
+
+import com.tracker.model.FixedPointPrice;
+import com.tracker.model.PriceBars;
+
+import java.math.BigDecimal;
+
+/**
+ * Rolling open/high/low/close/count bars for one symbol at every {@link PriceBars.Interval}.
+ * Each tick updates the current bar of every interval in O(1); completed bars are kept in a
+ * fixed-size ring per interval, in fixed-point prices. Like {@link PriceRingBuffer}, the bars
+ * move to a finer scale rather than round a tick, unless a stored bar would overflow.
+ */
+class PriceBarAggregator {
+
+    private final BarRing[] rings;
+    private int scale;
+
+    PriceBarAggregator(int maxBars) {
+        PriceBars.Interval[] intervals = PriceBars.Interval.values();
+        this.rings = new BarRing[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            rings[i] = new BarRing(intervals[i].getMillis(), maxBars);
+        }
+    }
+
+    synchronized void onTick(long timestampMillis, BigDecimal price) {
+        int priceScale = FixedPointPrice.scaleFor(price);
+        if (priceScale > scale || !rings[0].hasBars()) {
+            rescale(priceScale);
+        }
+        if (scale > FixedPointPrice.maxScale(price)) {
+            // Dropping decimal places never overflows
+            rescale(priceScale);
+        }
+
+        long value = FixedPointPrice.fromBigDecimal(price, scale);
+        for (BarRing ring : rings) {
+            ring.onTick(timestampMillis, value);
+        }
+    }
+
+    /**
+     * Copy the bars of one interval, oldest first, including the bar still in progress
+     */
+    synchronized BarSnapshot snapshot(PriceBars.Interval interval) {
+        return rings[interval.ordinal()].snapshot(scale);
+    }
+
+    /**
+     * Move every bar to a new scale, or keep the current one if a price would not fit
+     */
+    private void rescale(int newScale) {
+        if (newScale == scale) {
+            return;
+        }
+        BarRing[] rescaled = new BarRing[rings.length];
+        try {
+            for (int i = 0; i < rings.length; i++) {
+                rescaled[i] = rings[i].rescale(scale, newScale);
+            }
+        } catch (ArithmeticException e) {
+            return;
+        }
+        System.arraycopy(rescaled, 0, rings, 0, rings.length);
+        scale = newScale;
+    }
+
+    private static final class BarRing {
+        private final long intervalMillis;
+        private final long[] starts;
+        private final long[] opens;
+        private final long[] highs;
+        private final long[] lows;
+        private final long[] closes;
+        private final long[] counts;
+
+        /** Number of bars ever opened; the current bar is at (bars - 1) % capacity */
+        private long bars;
+
+        BarRing(long intervalMillis, int capacity) {
+            this(intervalMillis, new long[capacity], new long[capacity], new long[capacity],
+                    new long[capacity], new long[capacity], new long[capacity], 0);
+        }
+
+        private BarRing(long intervalMillis, long[] starts, long[] opens, long[] highs, long[] lows,
+                        long[] closes, long[] counts, long bars) {
+            this.intervalMillis = intervalMillis;
+            this.starts = starts;
+            this.opens = opens;
+            this.highs = highs;
+            this.lows = lows;
+            this.closes = closes;
+            this.counts = counts;
+            this.bars = bars;
+        }
+
+        boolean hasBars() {
+            return bars > 0;
+        }
+
+        /**
+         * Copy of this ring at another scale
+         *
+         * @throws ArithmeticException if a price would not fit a long
+         */
+        BarRing rescale(int fromScale, int toScale) {
+            return new BarRing(intervalMillis, starts.clone(), rescale(opens, fromScale, toScale),
+                    rescale(highs, fromScale, toScale), rescale(lows, fromScale, toScale),
+                    rescale(closes, fromScale, toScale), counts.clone(), bars);
+        }
+
+        private static long[] rescale(long[] prices, int fromScale, int toScale) {
+            long[] rescaled = new long[prices.length];
+            for (int i = 0; i < prices.length; i++) {
+                rescaled[i] = FixedPointPrice.rescale(prices[i], fromScale, toScale);
+            }
+            return rescaled;
+        }
+
+        void onTick(long timestampMillis, long price) {
+            long bucketStart = Math.floorDiv(timestampMillis, intervalMillis) * intervalMillis;
+            int current = (int) ((bars - 1) % starts.length);
+
+            if (bars > 0 && starts[current] == bucketStart) {
+                highs[current] = Math.max(highs[current], price);
+                lows[current] = Math.min(lows[current], price);
+                closes[current] = price;
+                counts[current]++;
+                return;
+            }
+            if (bars > 0 && bucketStart < starts[current]) {
+                // Late tick for a bar that has already rolled over
+                return;
+            }
+
+            int slot = (int) (bars % starts.length);
+            starts[slot] = bucketStart;
+            opens[slot] = price;
+            highs[slot] = price;
+            lows[slot] = price;
+            closes[slot] = price;
+            counts[slot] = 1;
+            bars++;
+        }
+
+        BarSnapshot snapshot(int scale) {
+            int size = (int) Math.min(bars, starts.length);
+            BarSnapshot snapshot = new BarSnapshot(size, scale);
+            long first = bars - size;
+            for (int i = 0; i < size; i++) {
+                int slot = (int) ((first + i) % starts.length);
+                snapshot.starts[i] = starts[slot];
+                snapshot.opens[i] = opens[slot];
+                snapshot.highs[i] = highs[slot];
+                snapshot.lows[i] = lows[slot];
+                snapshot.closes[i] = closes[slot];
+                snapshot.counts[i] = counts[slot];
+            }
+            return snapshot;
+        }
+    }
+
+    static final class BarSnapshot {
+        final long[] starts;
+        final long[] opens;
+        final long[] highs;
+        final long[] lows;
+        final long[] closes;
+        final long[] counts;
+        /** Scale of the copied prices */
+        final int scale;
+
+        private BarSnapshot(int size, int scale) {
+            this.starts = new long[size];
+            this.opens = new long[size];
+            this.highs = new long[size];
+            this.lows = new long[size];
+            this.closes = new long[size];
+            this.counts = new long[size];
+            this.scale = scale;
+        }
+
+        int size() {
+            return starts.length;
+        }
+    }
+}
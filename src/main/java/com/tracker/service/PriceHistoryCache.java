@@ -0,0 +1,194 @@
+package com.tracker.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracker.model.PriceRecord;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write-through cache of each symbol's recent price records. A symbol's first read is served
+ * by the store as usual and starts a background load of the symbol's window: its newest
+ * {@code max-records-per-symbol} records, newest first, with only the {@link #ATTRIBUTES} the
+ * history reads need. Later projected reads that the window covers are served from memory.
+ * Records written by this instance are appended as they are stored. Memory is bounded by the
+ * number of symbols and the records kept per symbol, and records drop out when their TTL
+ * passes.
+ *
+ * <p>Records written by other instances, such as the notification function, are not seen
+ * until the window is reloaded, which happens once it is {@code expire-after-write-minutes}
+ * old.
+ */
+@Component
+public class PriceHistoryCache {
+
+    /** Attributes a window holds; reads needing any other attribute go to the store */
+    public static final String[] ATTRIBUTES = {"timestamp", "spotPrice", "sellPrice", "dailyChangePercent", "ttl"};
+
+    private static final Set<String> CACHED_ATTRIBUTES = Set.of(ATTRIBUTES);
+    private static final Comparator<PriceRecord> BY_TIMESTAMP = Comparator.comparing(PriceRecord::getTimestamp);
+
+    /** Loads the newest records of a symbol's retention period, at most {@code limit} of them */
+    @FunctionalInterface
+    public interface WindowLoader {
+        CompletableFuture<List<PriceRecord>> load(String normalizedSymbol, int limit);
+    }
+
+    @Value("${price-history.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${price-history.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${price-history.cache.max-symbols:500}")
+    private int maxSymbols;
+
+    @Value("${price-history.cache.max-records-per-symbol:2000}")
+    private int maxRecordsPerSymbol;
+
+    @Value("${price-history.cache.expire-after-write-minutes:5}")
+    private int expireAfterWriteMinutes;
+
+    private AsyncCache<String, SymbolHistory> windows;
+
+    @PostConstruct
+    public void init() {
+        windows = Caffeine.newBuilder()
+                .maximumSize(maxSymbols)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .buildAsync();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    /**
+     * Whether a read of only these attributes can be served from a window
+     */
+    public boolean covers(String... attributes) {
+        return attributes.length > 0 && CACHED_ATTRIBUTES.containsAll(Arrays.asList(attributes));
+    }
+
+    /**
+     * Records of a symbol at or after {@code sinceMillis}, oldest first, or null if the symbol's
+     * window is not loaded yet or does not reach back to {@code sinceMillis}. Never waits for a
+     * load.
+     */
+    public List<PriceRecord> getSince(String normalizedSymbol, long sinceMillis) {
+        CompletableFuture<SymbolHistory> history = windows.getIfPresent(normalizedSymbol);
+        if (history == null || !history.isDone() || history.isCompletedExceptionally()) {
+            return null;
+        }
+        return history.join().since(sinceMillis);
+    }
+
+    /**
+     * Start loading a symbol's window in the background unless it is loaded or loading. A
+     * failed load is dropped, so the next read tries again.
+     */
+    public void load(String normalizedSymbol, WindowLoader loader) {
+        windows.get(normalizedSymbol, (symbol, executor) -> {
+            long retentionStartMillis = Instant.now().minus(Duration.ofDays(retentionDays)).toEpochMilli();
+            return loader.load(symbol, maxRecordsPerSymbol).thenApply(records -> {
+                // A full load stops at its oldest record; anything older was left out
+                long coveredFromMillis = records.size() >= maxRecordsPerSymbol
+                        ? records.get(0).getTimestamp().toEpochMilli()
+                        : retentionStartMillis;
+                return new SymbolHistory(coveredFromMillis, records);
+            });
+        });
+    }
+
+    /**
+     * Add a stored record to its symbol's window. Symbols without a window are skipped; a load
+     * in progress is waited for, so the record is not lost if the load missed it.
+     */
+    public void append(PriceRecord record) {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture<SymbolHistory> history = windows.getIfPresent(record.getSymbol());
+        if (history != null) {
+            history.thenAccept(window -> window.put(record));
+        }
+    }
+
+    private final class SymbolHistory {
+
+        /** Oldest time for which this window holds every record */
+        private long coveredFromMillis;
+        /** Ordered by timestamp, one record per timestamp */
+        private final List<PriceRecord> records;
+
+        private SymbolHistory(long coveredFromMillis, List<PriceRecord> loaded) {
+            this.coveredFromMillis = coveredFromMillis;
+            this.records = new ArrayList<>(loaded);
+            this.records.sort(BY_TIMESTAMP);
+            trimToCapacity();
+        }
+
+        private synchronized void put(PriceRecord record) {
+            int index = indexOf(record.getTimestamp().toEpochMilli());
+            if (index < records.size() && records.get(index).getTimestamp().equals(record.getTimestamp())) {
+                records.set(index, record);
+            } else {
+                records.add(index, record);
+            }
+            trimToCapacity();
+        }
+
+        private synchronized List<PriceRecord> since(long sinceMillis) {
+            long nowSeconds = Instant.now().getEpochSecond();
+            while (!records.isEmpty() && isExpired(records.get(0), nowSeconds)) {
+                records.remove(0);
+            }
+
+            if (sinceMillis < coveredFromMillis) {
+                return null;
+            }
+            return new ArrayList<>(records.subList(indexOf(sinceMillis), records.size()));
+        }
+
+        private void trimToCapacity() {
+            while (records.size() > maxRecordsPerSymbol) {
+                coveredFromMillis = records.remove(0).getTimestamp().toEpochMilli() + 1;
+            }
+        }
+
+        /**
+         * Index of the first record at or after {@code timestampMillis}
+         */
+        private int indexOf(long timestampMillis) {
+            int low = 0;
+            int high = records.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (records.get(mid).getTimestamp().toEpochMilli() < timestampMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private boolean isExpired(PriceRecord record, long nowSeconds) {
+            return record.getTtl() != null && record.getTtl() <= nowSeconds;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tracker.service;
 
+import com.tracker.model.DailyPriceRollup;
+import com.tracker.model.FixedPointPrice;
 import com.tracker.model.PriceChangeData;
 import com.tracker.model.PriceRecord;
 import com.tracker.model.PriceResponse;
@@ -8,10 +10,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -20,15 +18,34 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PriceHistoryService {
 
-    private final DynamoDbTable<PriceRecord> priceRecordTable;
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    /** Attributes read per use case, so queries do not pull whole records */
+    private static final String[] MOVING_AVERAGE_ATTRIBUTES = {"timestamp", "sellPrice"};
+    private static final String[] DAILY_CHANGE_ATTRIBUTES = {"timestamp", "spotPrice", "dailyChangePercent"};
+
+    private final PriceHistoryStore historyStore;
     private final CoinbaseService coinbaseService;
+    private final PriceHistoryCache historyCache;
+    private final PriceRollupService rollupService;
+
+    /** Rolling sell-price window per symbol for the trend moving average, loaded on first use */
+    private final Map<String, MovingAverageWindow> movingAverages = new ConcurrentHashMap<>();
 
     @Value("${price-history.retention-days:30}")
     private int retentionDays;
@@ -36,81 +53,192 @@ public class PriceHistoryService {
     @Value("${recommendation.trend.moving-average-days:7}")
     private int movingAverageDays;
 
+    @Value("${price-history.rollup.min-coverage:0.9}")
+    private double rollupMinCoverage;
+
     public void recordPrice(String symbol) {
-        String normalizedSymbol = normalizeSymbol(symbol);
+        recordPrices(List.of(symbol));
+    }
 
-        try {
-            PriceResponse prices = coinbaseService.getAllPrices(normalizedSymbol);
-            Instant now = Instant.now();
-
-            PriceRecord record = PriceRecord.builder()
-                    .symbol(normalizedSymbol)
-                    .timestamp(now)
-                    .spotPrice(prices.getSpotPrice())
-                    .buyPrice(prices.getBuyPrice())
-                    .sellPrice(prices.getSellPrice())
-                    .ttl(now.plus(Duration.ofDays(retentionDays)).getEpochSecond())
-                    .build();
+    /**
+     * Record the current prices of many symbols as one batch write
+     */
+    public void recordPrices(Collection<String> symbols) {
+        Map<String, PriceResponse> pricesBySymbol = coinbaseService.getCurrentPrices(
+                symbols.stream().map(this::normalizeSymbol).distinct().toList());
+        Instant now = Instant.now();
+        List<PriceRecord> records = new ArrayList<>();
 
-            priceRecordTable.putItem(record);
-            log.debug("Recorded price for {}: sell={}", normalizedSymbol, prices.getSellPrice());
-        } catch (Exception e) {
-            log.error("Failed to record price for {}: {}", normalizedSymbol, e.getMessage());
+        pricesBySymbol.forEach((normalizedSymbol, prices) -> records.add(PriceRecord.builder()
+                .symbol(normalizedSymbol)
+                .timestamp(now)
+                .spotPrice(prices.getSpotPrice())
+                .buyPrice(prices.getBuyPrice())
+                .sellPrice(prices.getSellPrice())
+                .ttl(now.plus(Duration.ofDays(retentionDays)).getEpochSecond())
+                .build()));
+
+        Set<PriceRecord> unwritten = new HashSet<>(historyStore.appendAll(records));
+        if (!unwritten.isEmpty()) {
+            log.error("Failed to record prices for {} of {} symbols", unwritten.size(), records.size());
         }
+        CompletableFuture.allOf(records.stream()
+                        .filter(record -> !unwritten.contains(record))
+                        .map(this::onRecordStored)
+                        .toArray(CompletableFuture[]::new))
+                .join();
+        log.debug("Recorded prices for {} of {} symbols", records.size() - unwritten.size(), symbols.size());
     }
 
-    public List<PriceRecord> getPriceHistory(String symbol, int days) {
+    /**
+     * Non-blocking variant of {@link #recordPrice(String)} that writes the record on its own
+     */
+    public CompletableFuture<Void> recordPriceAsync(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
-        Instant startTime = Instant.now().minus(Duration.ofDays(days));
-
-        QueryConditional queryConditional = QueryConditional.sortGreaterThanOrEqualTo(
-                Key.builder()
-                        .partitionValue(normalizedSymbol)
-                        .sortValue(startTime.toString())
-                        .build()
-        );
 
-        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
-                .queryConditional(queryConditional)
-                .build();
+        return coinbaseService.getCurrentPricesAsync(normalizedSymbol).toFuture()
+                .thenCompose(prices -> {
+                    Instant now = Instant.now();
+                    PriceRecord record = PriceRecord.builder()
+                            .symbol(normalizedSymbol)
+                            .timestamp(now)
+                            .spotPrice(prices.getSpotPrice())
+                            .buyPrice(prices.getBuyPrice())
+                            .sellPrice(prices.getSellPrice())
+                            .ttl(now.plus(Duration.ofDays(retentionDays)).getEpochSecond())
+                            .build();
+                    return historyStore.appendAsync(record)
+                            .thenCompose(done -> onRecordStored(record));
+                })
+                .exceptionally(e -> {
+                    log.error("Failed to record price for {}: {}", normalizedSymbol, e.getMessage());
+                    return null;
+                });
+    }
 
-        List<PriceRecord> records = new ArrayList<>();
-        priceRecordTable.query(request).items().forEach(records::add);
+    public List<PriceRecord> getPriceHistory(String symbol, int days) {
+        return queryHistory(normalizeSymbol(symbol), days);
+    }
 
-        return records;
+    /**
+     * Non-blocking variant of {@link #getPriceHistory(String, int)}
+     */
+    public CompletableFuture<List<PriceRecord>> getPriceHistoryAsync(String symbol, int days) {
+        return queryHistoryAsync(normalizeSymbol(symbol), days);
     }
 
     public BigDecimal calculateMovingAverage(String symbol, int days) {
-        List<PriceRecord> records = getPriceHistory(symbol, days);
+        String normalizedSymbol = normalizeSymbol(symbol);
+        if (days > retentionDays && rollupService.isEnabled()) {
+            return calculateMovingAverageFromRollups(normalizedSymbol, days);
+        }
+        if (days != movingAverageDays) {
+            return calculateMovingAverageFromStorage(normalizedSymbol, days);
+        }
 
-        if (records.isEmpty()) {
-            log.warn("No price history available for {} to calculate moving average", symbol);
-            return null;
+        MovingAverageWindow window = movingAverages.get(normalizedSymbol);
+        if (window == null) {
+            // Load outside the map so storage I/O never runs under its lock; a concurrent load wins
+            MovingAverageWindow loaded = buildMovingAverage(normalizedSymbol,
+                    queryHistory(normalizedSymbol, movingAverageDays, MOVING_AVERAGE_ATTRIBUTES));
+            MovingAverageWindow existing = movingAverages.putIfAbsent(normalizedSymbol, loaded);
+            window = existing != null ? existing : loaded;
         }
+        return averageOf(normalizedSymbol, window);
+    }
 
-        BigDecimal sum = records.stream()
-                .map(PriceRecord::getSellPrice)
-                .filter(price -> price != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Non-blocking moving average over the trend window. Only a cold symbol touches storage.
+     */
+    public CompletableFuture<BigDecimal> calculateMovingAverageAsync(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        MovingAverageWindow window = movingAverages.get(normalizedSymbol);
+        if (window != null) {
+            return CompletableFuture.completedFuture(averageOf(normalizedSymbol, window));
+        }
 
-        long count = records.stream()
-                .filter(record -> record.getSellPrice() != null)
-                .count();
+        return queryHistoryAsync(normalizedSymbol, movingAverageDays, MOVING_AVERAGE_ATTRIBUTES).thenApply(records -> {
+            MovingAverageWindow loaded = buildMovingAverage(normalizedSymbol, records);
+            MovingAverageWindow existing = movingAverages.putIfAbsent(normalizedSymbol, loaded);
+            return averageOf(normalizedSymbol, existing != null ? existing : loaded);
+        });
+    }
+
+    /**
+     * Daily rollups of the last {@code days}, oldest first. They outlive the raw records, so
+     * this answers windows longer than {@code price-history.retention-days}.
+     */
+    public List<DailyPriceRollup> getDailyRollups(String symbol, int days) {
+        return rollupService.getRollups(normalizeSymbol(symbol), LocalDate.now(MARKET_ZONE).minusDays(days));
+    }
+
+    /**
+     * Long windows read one rollup per day. The sums and counts of the days are added up, so
+     * the result matches an average over the raw samples. A year of sub-minute samples
+     * overflows a fixed-point long, so the sums are added as BigDecimal. Rollups only exist
+     * from the day they were introduced, so a window they do not cover well enough has no
+     * average.
+     */
+    private BigDecimal calculateMovingAverageFromRollups(String normalizedSymbol, int days) {
+        BigDecimal sum = BigDecimal.ZERO;
+        long count = 0;
+        int coveredDays = 0;
+
+        for (DailyPriceRollup rollup : getDailyRollups(normalizedSymbol, days)) {
+            if (rollup.getSum() != null && rollup.getCount() != null && rollup.getCount() > 0) {
+                sum = sum.add(rollup.getSum());
+                count += rollup.getCount();
+                coveredDays++;
+            }
+        }
 
         if (count == 0) {
+            log.warn("No daily rollups available for {} to calculate a {}-day moving average", normalizedSymbol, days);
+            return null;
+        }
+        if (coveredDays < Math.ceil(days * rollupMinCoverage)) {
+            log.warn("Daily rollups of {} cover only {} of {} days; no {}-day moving average",
+                    normalizedSymbol, coveredDays, days, days);
             return null;
         }
 
         return sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
     }
 
+    private BigDecimal calculateMovingAverageFromStorage(String symbol, int days) {
+        List<PriceRecord> records = queryHistory(symbol, days, MOVING_AVERAGE_ATTRIBUTES);
+
+        if (records.isEmpty()) {
+            log.warn("No price history available for {} to calculate moving average", symbol);
+            return null;
+        }
+
+        BigDecimal average = FixedPointPrice.average(records.stream().map(PriceRecord::getSellPrice).toList());
+        return average != null ? average.setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
     public TrendData analyzeTrend(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
 
         BigDecimal movingAverage = calculateMovingAverage(normalizedSymbol, movingAverageDays);
         PriceResponse currentPrices = coinbaseService.getAllPrices(normalizedSymbol);
-        BigDecimal currentPrice = currentPrices.getSellPrice();
+        return buildTrendData(normalizedSymbol, movingAverage, currentPrices.getSellPrice());
+    }
 
+    /**
+     * Non-blocking variant of {@link #analyzeTrend(String)}; the moving average and the current
+     * price are fetched concurrently
+     */
+    public CompletableFuture<TrendData> analyzeTrendAsync(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+
+        return calculateMovingAverageAsync(normalizedSymbol).thenCombine(
+                coinbaseService.getAllPricesAsync(normalizedSymbol).toFuture(),
+                (movingAverage, currentPrices) ->
+                        buildTrendData(normalizedSymbol, movingAverage, currentPrices.getSellPrice()));
+    }
+
+    private TrendData buildTrendData(String normalizedSymbol, BigDecimal movingAverage, BigDecimal currentPrice) {
         if (movingAverage == null || currentPrice == null) {
             log.warn("Unable to analyze trend for {}: insufficient data", normalizedSymbol);
             return TrendData.builder()
@@ -121,11 +249,10 @@ public class PriceHistoryService {
                     .build();
         }
 
+        BigDecimal percentChange = FixedPointPrice.percentChange(movingAverage, currentPrice);
+
         boolean trendingUp = currentPrice.compareTo(movingAverage) > 0;
-        double percentAbove = currentPrice.subtract(movingAverage)
-                .divide(movingAverage, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .doubleValue();
+        double percentAbove = percentChange != null ? percentChange.doubleValue() : 0.0;
 
         return TrendData.builder()
                 .currentPrice(currentPrice)
@@ -145,33 +272,17 @@ public class PriceHistoryService {
      */
     public PriceRecord getLatestRecord(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
-        List<PriceRecord> records = getPriceHistory(normalizedSymbol, 2);
-
-        if (records.isEmpty()) {
-            return null;
-        }
-
-        // Return the most recent record
-        return records.get(records.size() - 1);
+        Instant now = Instant.now();
+        return historyStore.latest(normalizedSymbol, now.minus(Duration.ofDays(2)), now);
     }
 
     /**
-     * Check if a record already exists for today
+     * Non-blocking variant of {@link #getLatestRecord(String)}
      */
-    private boolean hasRecordForToday(String symbol) {
-        List<PriceRecord> todayRecords = getPriceHistory(symbol, 1);
-        if (todayRecords.isEmpty()) {
-            return false;
-        }
-
-        LocalDate today = LocalDate.now(ZoneId.of("America/New_York"));
-        return todayRecords.stream()
-                .anyMatch(record -> {
-                    LocalDate recordDate = record.getTimestamp()
-                            .atZone(ZoneId.of("America/New_York"))
-                            .toLocalDate();
-                    return recordDate.equals(today);
-                });
+    public CompletableFuture<PriceRecord> getLatestRecordAsync(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        Instant now = Instant.now();
+        return historyStore.latestAsync(normalizedSymbol, now.minus(Duration.ofDays(2)), now);
     }
 
     /**
@@ -179,80 +290,97 @@ public class PriceHistoryService {
      */
     public PriceChangeData recordPriceWithChange(String symbol, PriceResponse prices) {
         String normalizedSymbol = normalizeSymbol(symbol);
-        Instant now = Instant.now();
+        List<PriceRecord> history = queryHistory(normalizedSymbol, movingAverageDays + 1, DAILY_CHANGE_ATTRIBUTES);
+        return recordPriceWithChange(normalizedSymbol, prices, history, this::putDailyRecord);
+    }
 
-        // Check if we already have a record for today
-        boolean alreadyRecordedToday = hasRecordForToday(normalizedSymbol);
+    /**
+     * Record prices for many symbols and calculate their change data. The new daily records of
+     * the whole tick are written as one batch. Batch writes cannot be conditional, but a daily
+     * record is keyed by its market day, so an overlapping run only overwrites that day's record
+     * and the rollup merges a record key once. Symbols whose history cannot be read are logged
+     * and left out of the result.
+     */
+    public Map<String, PriceChangeData> recordPricesWithChange(Map<String, PriceResponse> pricesBySymbol) {
+        Map<String, PriceChangeData> changes = new LinkedHashMap<>();
+        List<PriceRecord> records = new ArrayList<>();
 
-        // Get previous record for daily change calculation (yesterday's record)
-        List<PriceRecord> history = getPriceHistory(normalizedSymbol, movingAverageDays);
+        // Issue every history query up front so they run concurrently
+        Map<String, CompletableFuture<List<PriceRecord>>> histories = new LinkedHashMap<>();
+        pricesBySymbol.keySet().forEach(symbol ->
+                histories.put(symbol, queryHistoryAsync(normalizeSymbol(symbol), movingAverageDays + 1, DAILY_CHANGE_ATTRIBUTES)));
+
+        pricesBySymbol.forEach((symbol, prices) -> {
+            try {
+                List<PriceRecord> history = histories.get(symbol).join();
+                changes.put(symbol, recordPriceWithChange(normalizeSymbol(symbol), prices, history, records::add));
+            } catch (Exception e) {
+                log.warn("Failed to record price change for {}: {}", symbol, e.getMessage());
+            }
+        });
+
+        Set<PriceRecord> unwritten = new HashSet<>(historyStore.appendAll(records));
+        unwritten.forEach(record -> log.error("Failed to record daily price for {}", record.getSymbol()));
+        CompletableFuture.allOf(records.stream()
+                        .filter(record -> !unwritten.contains(record))
+                        .map(this::onRecordStored)
+                        .toArray(CompletableFuture[]::new))
+                .join();
+        return changes;
+    }
+
+    /**
+     * One history window serves the today check, the previous day and the average change. The
+     * history must reach back past the start of the market day {@code movingAverageDays} ago;
+     * the average change covers the daily records of those days before today.
+     */
+    private PriceChangeData recordPriceWithChange(String normalizedSymbol, PriceResponse prices,
+                                                  List<PriceRecord> history,
+                                                  Consumer<PriceRecord> dailyRecordWriter) {
+        LocalDate today = LocalDate.now(MARKET_ZONE);
+        boolean alreadyRecordedToday = false;
         PriceRecord previousRecord = null;
-        BigDecimal dailyChangePercent = null;
 
-        if (!history.isEmpty()) {
-            // Find the most recent record from a previous day
-            LocalDate today = LocalDate.now(ZoneId.of("America/New_York"));
-            previousRecord = history.stream()
-                    .filter(record -> {
-                        LocalDate recordDate = record.getTimestamp()
-                                .atZone(ZoneId.of("America/New_York"))
-                                .toLocalDate();
-                        return recordDate.isBefore(today);
-                    })
-                    .reduce((first, second) -> second) // Get the last (most recent) one
-                    .orElse(null);
+        for (PriceRecord record : history) {
+            LocalDate recordDate = record.getTimestamp().atZone(MARKET_ZONE).toLocalDate();
+            if (recordDate.equals(today)) {
+                alreadyRecordedToday = true;
+            } else if (recordDate.isBefore(today)) {
+                // Records come back oldest first, so the last one wins
+                previousRecord = record;
+            }
         }
 
+        BigDecimal dailyChangePercent = null;
         if (previousRecord != null && previousRecord.getSpotPrice() != null && prices.getSpotPrice() != null) {
-            BigDecimal previousPrice = previousRecord.getSpotPrice();
-            BigDecimal currentPrice = prices.getSpotPrice();
-
-            if (previousPrice.compareTo(BigDecimal.ZERO) != 0) {
-                dailyChangePercent = currentPrice.subtract(previousPrice)
-                        .divide(previousPrice, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-                        .setScale(2, RoundingMode.HALF_UP);
-            }
+            dailyChangePercent = FixedPointPrice.percentChange(previousRecord.getSpotPrice(), prices.getSpotPrice());
         }
 
-        // Only save if we don't have a record for today yet
-        if (!alreadyRecordedToday) {
-            PriceRecord record = PriceRecord.builder()
-                    .symbol(normalizedSymbol)
-                    .timestamp(now)
-                    .spotPrice(prices.getSpotPrice())
-                    .buyPrice(prices.getBuyPrice())
-                    .sellPrice(prices.getSellPrice())
-                    .dailyChangePercent(dailyChangePercent)
-                    .ttl(now.plus(Duration.ofDays(retentionDays)).getEpochSecond())
-                    .build();
-
-            priceRecordTable.putItem(record);
-            log.debug("Recorded price for {}: spot={}, dailyChange={}%",
-                    normalizedSymbol, prices.getSpotPrice(), dailyChangePercent);
+        // Only save if we don't have a record for today yet, and never persist last-known prices
+        if (!alreadyRecordedToday && !Boolean.TRUE.equals(prices.getStale())) {
+            dailyRecordWriter.accept(buildDailyRecord(normalizedSymbol, today, prices, dailyChangePercent));
         } else {
             log.debug("Skipping price record for {} - already recorded today", normalizedSymbol);
         }
 
         // Calculate average daily change from historical records
-        BigDecimal avgChangePercent = null;
-        int daysOfData = 0;
-
-        if (!history.isEmpty()) {
-            List<BigDecimal> changes = history.stream()
-                    .map(PriceRecord::getDailyChangePercent)
-                    .filter(change -> change != null)
-                    .toList();
-
-            daysOfData = changes.size();
-
-            if (!changes.isEmpty()) {
-                BigDecimal sum = changes.stream()
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                avgChangePercent = sum.divide(BigDecimal.valueOf(changes.size()), 2, RoundingMode.HALF_UP);
+        List<BigDecimal> changes = new ArrayList<>();
+        LocalDate firstDay = today.minusDays(movingAverageDays);
+
+        for (PriceRecord record : history) {
+            LocalDate recordDate = record.getTimestamp().atZone(MARKET_ZONE).toLocalDate();
+            if (record.getDailyChangePercent() != null
+                    && !recordDate.isBefore(firstDay) && recordDate.isBefore(today)) {
+                changes.add(record.getDailyChangePercent());
             }
         }
 
+        int daysOfData = changes.size();
+        BigDecimal avgChangePercent = FixedPointPrice.average(changes);
+        if (avgChangePercent != null) {
+            avgChangePercent = avgChangePercent.setScale(FixedPointPrice.PERCENT_SCALE, RoundingMode.HALF_UP);
+        }
+
         return PriceChangeData.builder()
                 .currentPrice(prices.getSpotPrice())
                 .dailyChangePercent(dailyChangePercent)
@@ -261,6 +389,134 @@ public class PriceHistoryService {
                 .build();
     }
 
+    /**
+     * Daily records are keyed by the start of the market day, so a day has at most one record
+     */
+    private PriceRecord buildDailyRecord(String normalizedSymbol, LocalDate day, PriceResponse prices,
+                                         BigDecimal dailyChangePercent) {
+        return PriceRecord.builder()
+                .symbol(normalizedSymbol)
+                .timestamp(day.atStartOfDay(MARKET_ZONE).toInstant())
+                .spotPrice(prices.getSpotPrice())
+                .buyPrice(prices.getBuyPrice())
+                .sellPrice(prices.getSellPrice())
+                .dailyChangePercent(dailyChangePercent)
+                .ttl(Instant.now().plus(Duration.ofDays(retentionDays)).getEpochSecond())
+                .build();
+    }
+
+    /**
+     * Write a daily record only if its day is new, so overlapping runs cannot both record it
+     */
+    private void putDailyRecord(PriceRecord record) {
+        if (historyStore.appendIfAbsent(record)) {
+            onRecordStored(record).join();
+            log.debug("Recorded price for {}: spot={}, dailyChange={}%",
+                    record.getSymbol(), record.getSpotPrice(), record.getDailyChangePercent());
+        } else {
+            log.debug("Skipping price record for {} - recorded concurrently for {}",
+                    record.getSymbol(), record.getTimestamp());
+        }
+    }
+
+    /**
+     * Build a symbol's moving-average window from stored records. Only runs when the symbol has
+     * no window yet, i.e. after a cold start.
+     */
+    private MovingAverageWindow buildMovingAverage(String normalizedSymbol, List<PriceRecord> records) {
+        MovingAverageWindow window = new MovingAverageWindow(Duration.ofDays(movingAverageDays).toMillis());
+        for (PriceRecord record : records) {
+            window.add(record.getTimestamp().toEpochMilli(), record.getSellPrice());
+        }
+        log.debug("Loaded {} records into the moving average for {}", window.size(), normalizedSymbol);
+        return window;
+    }
+
+    private BigDecimal averageOf(String normalizedSymbol, MovingAverageWindow window) {
+        BigDecimal average = window.average(Instant.now().toEpochMilli());
+        if (average == null) {
+            log.warn("No price history available for {} to calculate moving average", normalizedSymbol);
+            return null;
+        }
+        return average.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Bring the in-memory state up to date with a record that was written. Completes once the
+     * record is merged into its daily rollup, which never fails.
+     */
+    private CompletableFuture<Void> onRecordStored(PriceRecord record) {
+        historyCache.append(record);
+        updateMovingAverage(record);
+        return rollupService.record(record.getTimestamp().atZone(MARKET_ZONE).toLocalDate(), record);
+    }
+
+    /**
+     * Add a stored record to its symbol's window. Symbols without a window are skipped; their
+     * window will include the record when it is loaded. A record stored while a load is still
+     * reading storage may be missing from that load until it ages out of the window, and the
+     * window ignores a record it already has.
+     */
+    private void updateMovingAverage(PriceRecord record) {
+        if (record.getSellPrice() == null) {
+            return;
+        }
+        movingAverages.computeIfPresent(record.getSymbol(), (symbol, window) -> {
+            window.add(record.getTimestamp().toEpochMilli(), record.getSellPrice());
+            return window;
+        });
+    }
+
+    /**
+     * Records of the last {@code days}, oldest first. Projected reads are served from the
+     * history cache when it covers the window; otherwise only the given attributes are read,
+     * if any, and the other fields of the returned records are null.
+     */
+    private List<PriceRecord> queryHistory(String normalizedSymbol, int days, String... attributes) {
+        List<PriceRecord> cached = cachedHistory(normalizedSymbol, days, attributes);
+        if (cached != null) {
+            return cached;
+        }
+
+        Instant now = Instant.now();
+        return historyStore.range(normalizedSymbol, now.minus(Duration.ofDays(days)), now, attributes);
+    }
+
+    private CompletableFuture<List<PriceRecord>> queryHistoryAsync(String normalizedSymbol, int days,
+                                                                   String... attributes) {
+        List<PriceRecord> cached = cachedHistory(normalizedSymbol, days, attributes);
+        return cached != null
+                ? CompletableFuture.completedFuture(cached)
+                : queryStoreAsync(normalizedSymbol, days, attributes);
+    }
+
+    /**
+     * Records of the last {@code days} from the history cache, or null when the cache cannot
+     * answer. A symbol without a window gets one loaded in the background, so only later reads
+     * are served from memory.
+     */
+    private List<PriceRecord> cachedHistory(String normalizedSymbol, int days, String... attributes) {
+        if (!historyCache.isEnabled() || days > historyCache.getRetentionDays() || !historyCache.covers(attributes)) {
+            return null;
+        }
+        long sinceMillis = Instant.now().minus(Duration.ofDays(days)).toEpochMilli();
+        List<PriceRecord> cached = historyCache.getSince(normalizedSymbol, sinceMillis);
+        if (cached == null) {
+            historyCache.load(normalizedSymbol, (symbol, limit) -> {
+                Instant now = Instant.now();
+                return historyStore.recentAsync(symbol, now.minus(Duration.ofDays(historyCache.getRetentionDays())),
+                        now, limit, PriceHistoryCache.ATTRIBUTES);
+            });
+        }
+        return cached;
+    }
+
+    private CompletableFuture<List<PriceRecord>> queryStoreAsync(String normalizedSymbol, int days,
+                                                                 String... attributes) {
+        Instant now = Instant.now();
+        return historyStore.rangeAsync(normalizedSymbol, now.minus(Duration.ofDays(days)), now, attributes);
+    }
+
     private String normalizeSymbol(String symbol) {
         if (symbol.contains("-")) {
             return symbol.toUpperCase();
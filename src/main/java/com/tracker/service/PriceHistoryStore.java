@@ -0,0 +1,62 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage for raw price records, keyed by symbol and timestamp. Records are addressed by
+ * their normalized symbol, and reads return them oldest first. Implementations must be safe
+ * for concurrent use. The backend is chosen with {@code price-history.store}.
+ */
+public interface PriceHistoryStore {
+
+    /**
+     * Store a record unless one with the same symbol and timestamp exists
+     *
+     * @return whether the record was stored
+     */
+    boolean appendIfAbsent(PriceRecord record);
+
+    /**
+     * Non-blocking variant of {@link #appendIfAbsent(PriceRecord)}
+     */
+    CompletableFuture<Boolean> appendIfAbsentAsync(PriceRecord record);
+
+    /**
+     * Store records as a batch. A record replaces any existing one with the same key; of given
+     * records sharing a key, the last one is stored.
+     *
+     * @return the given records that could not be written
+     */
+    List<PriceRecord> appendAll(Collection<PriceRecord> records);
+
+    CompletableFuture<Void> appendAsync(PriceRecord record);
+
+    /**
+     * Records with {@code from <= timestamp <= to}. With attributes given, a store may read only
+     * those; other fields of the returned records may then be null.
+     */
+    List<PriceRecord> range(String normalizedSymbol, Instant from, Instant to, String... attributes);
+
+    CompletableFuture<List<PriceRecord>> rangeAsync(String normalizedSymbol, Instant from, Instant to,
+                                                    String... attributes);
+
+    /**
+     * The newest {@code limit} records with {@code from <= timestamp <= to}, returned oldest
+     * first. Stores read newest first and stop at the limit. Attributes work as for
+     * {@link #range}.
+     */
+    CompletableFuture<List<PriceRecord>> recentAsync(String normalizedSymbol, Instant from, Instant to, int limit,
+                                                     String... attributes);
+
+    /**
+     * Newest record with {@code from <= timestamp <= to}, or null
+     */
+    PriceRecord latest(String normalizedSymbol, Instant from, Instant to);
+
+    CompletableFuture<PriceRecord> latestAsync(String normalizedSymbol, Instant from, Instant to);
+}
@@ -0,0 +1,226 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes price records with BatchWriteItem, 25 items per request (the DynamoDB limit). Records
+ * are either written as a whole tick with {@link #writeAll} or buffered one at a time with
+ * {@link #enqueue}, so concurrent single writes share requests. Items the service returns as
+ * unprocessed are retried with exponential backoff and jitter, scheduled without blocking a
+ * thread. Records still unwritten after the last retry are handed back to the caller, never
+ * kept around. BatchWriteItem cannot carry conditions, so records that must not overwrite an
+ * existing item need a conditional put instead.
+ */
+@Slf4j
+@Component
+public class PriceRecordBatchWriter {
+
+    static final int MAX_BATCH_SIZE = 25;
+
+    private final DynamoDbEnhancedAsyncClient enhancedAsyncClient;
+    private final DynamoDbAsyncTable<PriceRecord> priceRecordAsyncTable;
+
+    /** Pending records keyed by table key, so a re-recorded key replaces the older item */
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+    @Value("${price-history.batch.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${price-history.batch.initial-backoff-millis:50}")
+    private long initialBackoffMillis;
+
+    @Value("${price-history.batch.max-backoff-millis:2000}")
+    private long maxBackoffMillis;
+
+    @Value("${price-history.batch.flush-interval-millis:50}")
+    private long flushIntervalMillis;
+
+    public PriceRecordBatchWriter(DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                                  DynamoDbAsyncTable<PriceRecord> priceRecordAsyncTable) {
+        this.enhancedAsyncClient = enhancedAsyncClient;
+        this.priceRecordAsyncTable = priceRecordAsyncTable;
+    }
+
+    /**
+     * Buffer a record for the next batch. The batch goes out once it holds 25 records, or
+     * {@code flush-interval-millis} after its first record.
+     *
+     * @return completes once the record is written, or fails if it could not be
+     */
+    public CompletableFuture<Void> enqueue(PriceRecord record) {
+        List<Pending> fullBatch = null;
+        boolean scheduleFlush;
+        Pending entry;
+        synchronized (pending) {
+            scheduleFlush = pending.isEmpty();
+            entry = pending.compute(keyOf(record), (key, replaced) ->
+                    new Pending(record, replaced != null ? replaced.written : new CompletableFuture<>()));
+            if (pending.size() >= MAX_BATCH_SIZE) {
+                fullBatch = drain();
+            }
+        }
+
+        if (fullBatch != null) {
+            write(fullBatch);
+        } else if (scheduleFlush) {
+            CompletableFuture.runAsync(this::flush,
+                    CompletableFuture.delayedExecutor(flushIntervalMillis, TimeUnit.MILLISECONDS));
+        }
+        return entry.written;
+    }
+
+    /**
+     * Write every buffered record now
+     *
+     * @return the buffered records that could not be written
+     */
+    public CompletableFuture<List<PriceRecord>> flush() {
+        List<Pending> batch;
+        synchronized (pending) {
+            batch = drain();
+        }
+        return write(batch);
+    }
+
+    /**
+     * Write the given records in batches, independently of the buffer. Of records sharing a
+     * key only the last is written, since one request must not repeat a key.
+     *
+     * @return the records that could not be written
+     */
+    public CompletableFuture<List<PriceRecord>> writeAllAsync(Collection<PriceRecord> records) {
+        Map<String, PriceRecord> byKey = new LinkedHashMap<>();
+        records.forEach(record -> byKey.put(keyOf(record), record));
+        List<PriceRecord> unique = new ArrayList<>(byKey.values());
+
+        List<CompletableFuture<List<PriceRecord>>> batches = new ArrayList<>();
+        for (int from = 0; from < unique.size(); from += MAX_BATCH_SIZE) {
+            batches.add(write(unique.subList(from, Math.min(unique.size(), from + MAX_BATCH_SIZE)), 0,
+                    initialBackoffMillis));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            List<PriceRecord> failed = new ArrayList<>();
+            batches.forEach(batch -> failed.addAll(batch.join()));
+            return failed;
+        });
+    }
+
+    /**
+     * Blocking variant of {@link #writeAllAsync}
+     */
+    public List<PriceRecord> writeAll(Collection<PriceRecord> records) {
+        return writeAllAsync(records).join();
+    }
+
+    @PreDestroy
+    public void close() {
+        List<PriceRecord> failed = flush().join();
+        if (!failed.isEmpty()) {
+            log.error("Dropping {} buffered price records that could not be written on shutdown", failed.size());
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private List<Pending> drain() {
+        List<Pending> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        return batch;
+    }
+
+    /**
+     * Write drained records and settle their futures
+     */
+    private CompletableFuture<List<PriceRecord>> write(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return writeAllAsync(batch.stream().map(Pending::record).toList()).thenApply(failed -> {
+            Set<String> failedKeys = new HashSet<>();
+            failed.forEach(record -> failedKeys.add(keyOf(record)));
+            for (Pending entry : batch) {
+                if (failedKeys.contains(keyOf(entry.record))) {
+                    entry.written.completeExceptionally(
+                            new IllegalStateException("Price record was not written: " + keyOf(entry.record)));
+                } else {
+                    entry.written.complete(null);
+                }
+            }
+            return failed;
+        });
+    }
+
+    /**
+     * Write one batch, retrying unprocessed items after a jittered delay, and complete with
+     * the records still unwritten
+     */
+    private CompletableFuture<List<PriceRecord>> write(List<PriceRecord> batch, int attempt, long backoffMillis) {
+        return writeOnce(batch)
+                .exceptionally(e -> {
+                    log.warn("Batch write of {} price records failed: {}", batch.size(), e.getMessage());
+                    return batch;
+                })
+                .thenCompose(remaining -> {
+                    if (remaining.isEmpty()) {
+                        return CompletableFuture.completedFuture(remaining);
+                    }
+                    if (attempt == maxRetries) {
+                        log.error("Gave up writing {} price records after {} retries", remaining.size(), maxRetries);
+                        return CompletableFuture.completedFuture(remaining);
+                    }
+
+                    long delayMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1);
+                    return CompletableFuture.supplyAsync(() -> remaining,
+                                    CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS))
+                            .thenCompose(retry -> write(retry, attempt + 1,
+                                    Math.min(maxBackoffMillis, backoffMillis * 2)));
+                });
+    }
+
+    /**
+     * Issue one BatchWriteItem request and complete with the items DynamoDB did not process
+     */
+    private CompletableFuture<List<PriceRecord>> writeOnce(List<PriceRecord> batch) {
+        WriteBatch.Builder<PriceRecord> writeBatch = WriteBatch.builder(PriceRecord.class)
+                .mappedTableResource(priceRecordAsyncTable);
+        batch.forEach(writeBatch::addPutItem);
+
+        return enhancedAsyncClient.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                        .writeBatches(writeBatch.build())
+                        .build())
+                .thenApply(result -> result.unprocessedPutItemsForTable(priceRecordAsyncTable));
+    }
+
+    static String keyOf(PriceRecord record) {
+        return record.getSymbol() + "|" + record.getTimestamp();
+    }
+
+    /**
+     * A buffered record and the future of its write, shared by the records it replaced
+     */
+    private record Pending(PriceRecord record, CompletableFuture<Void> written) {
+    }
+}
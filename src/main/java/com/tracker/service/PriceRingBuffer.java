@@ -0,0 +1,290 @@
+package com.tracker.service;
+
+import com.tracker.model.FixedPointPrice;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity ring of price samples stored column-wise in primitive arrays
+ * (epoch-millis timestamps and fixed-point spot/buy/sell prices).
+ *
+ * <p>Appends are serialized so there is a single writer at a time; readers never lock. A
+ * reader copies the published range and then re-checks the claimed sequence, discarding any
+ * slots the writer may have overwritten while it was copying. Columns start small and grow
+ * up to the capacity, so a mostly idle symbol does not pay for the full capacity.
+ *
+ * <p>All prices share the scale of the columns. A change of scale copies the columns, as
+ * growing does, so a reader always sees prices and scale that belong together.
+ */
+class PriceRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int capacity;
+
+    /** Total number of samples ever appended; slot for sequence n is n % columns.length */
+    private volatile long writeSequence;
+    /** Sequence the writer has claimed, bumped before a slot is written */
+    private volatile long claimSequence;
+    private volatile Columns columns;
+
+    PriceRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.columns = new Columns(Math.min(capacity, INITIAL_CAPACITY), 0);
+    }
+
+    int scale() {
+        return columns.scale;
+    }
+
+    /**
+     * Settle the scale for a new sample and return it. The buffer takes on a finer sample scale
+     * rather than round the sample, unless a stored sample would no longer fit a long; it drops
+     * to the sample's scale if the sample does not fit the current one.
+     *
+     * @param sampleScale    scale that keeps every decimal place of the sample
+     * @param maxSampleScale largest scale at which the sample fits a long
+     */
+    synchronized int adjustScale(int sampleScale, int maxSampleScale) {
+        if (sampleScale > columns.scale || writeSequence == 0) {
+            Columns rescaled = columns.rescale(sampleScale);
+            if (rescaled != null) {
+                columns = rescaled;
+            }
+        }
+        if (columns.scale > maxSampleScale) {
+            // Dropping decimal places never overflows
+            columns = columns.rescale(sampleScale);
+        }
+        return columns.scale;
+    }
+
+    synchronized void append(long timestampMillis, long spotPrice, long buyPrice, long sellPrice) {
+        long sequence = writeSequence;
+        Columns current = columns;
+
+        if (sequence == current.length() && current.length() < capacity) {
+            current = current.grow(Math.min(capacity, current.length() * 2));
+            columns = current;
+        }
+
+        claimSequence = sequence + 1;
+        // Keep the slot writes below from becoming visible before the claim
+        VarHandle.storeStoreFence();
+
+        int slot = (int) (sequence % current.length());
+        current.timestamps[slot] = timestampMillis;
+        current.spotPrices[slot] = spotPrice;
+        current.buyPrices[slot] = buyPrice;
+        current.sellPrices[slot] = sellPrice;
+
+        writeSequence = sequence + 1;
+    }
+
+    int size() {
+        return (int) Math.min(writeSequence, capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copy the current contents, oldest first, without blocking the writer
+     */
+    Snapshot snapshot() {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Copy samples with {@code fromMillis <= timestamp <= toMillis}, oldest first, keeping at most
+     * {@code limit} of them. With a positive {@code stepMillis}, each kept sample is the first one
+     * at least one step after the previous. The start of the range and every step are found by
+     * binary search, so the cost is proportional to the result rather than the buffer.
+     *
+     * <p>If the limit cuts the range short, {@link Snapshot#nextTimestamp()} is the timestamp of the
+     * first sample that was left out.
+     */
+    Snapshot range(long fromMillis, long toMillis, int limit, long stepMillis) {
+        while (true) {
+            long end = writeSequence;
+            Columns current = columns;
+            int length = current.length();
+            long start = Math.max(0, end - length);
+
+            long sequence = lowerBound(current, start, end, fromMillis);
+            int capacityHint = (int) Math.min(limit, end - sequence);
+
+            long[] timestamps = new long[capacityHint];
+            long[] spotPrices = new long[capacityHint];
+            long[] buyPrices = new long[capacityHint];
+            long[] sellPrices = new long[capacityHint];
+            int size = 0;
+            long nextTimestamp = Snapshot.NO_MORE;
+
+            while (sequence < end) {
+                int slot = (int) (sequence % length);
+                long timestamp = current.timestamps[slot];
+                if (timestamp > toMillis) {
+                    break;
+                }
+                if (size == limit) {
+                    nextTimestamp = timestamp;
+                    break;
+                }
+
+                timestamps[size] = timestamp;
+                spotPrices[size] = current.spotPrices[slot];
+                buyPrices[size] = current.buyPrices[slot];
+                sellPrices[size] = current.sellPrices[slot];
+                size++;
+
+                sequence = stepMillis > 0
+                        ? lowerBound(current, sequence + 1, end, timestamp + stepMillis)
+                        : sequence + 1;
+            }
+
+            // Make sure the reads above are not reordered after the re-check below
+            VarHandle.loadLoadFence();
+            if (claimSequence - length > start) {
+                // The writer may have overwritten slots we read from; try again
+                continue;
+            }
+            return new Snapshot(timestamps, spotPrices, buyPrices, sellPrices, current.scale, size, nextTimestamp);
+        }
+    }
+
+    /**
+     * First sequence in [from, to) whose timestamp is at least {@code targetMillis}
+     */
+    private static long lowerBound(Columns columns, long from, long to, long targetMillis) {
+        int length = columns.length();
+        long low = from;
+        long high = to;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (columns.timestamps[(int) (mid % length)] < targetMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Columns {
+        final long[] timestamps;
+        final long[] spotPrices;
+        final long[] buyPrices;
+        final long[] sellPrices;
+        final int scale;
+
+        Columns(int length, int scale) {
+            this(new long[length], new long[length], new long[length], new long[length], scale);
+        }
+
+        private Columns(long[] timestamps, long[] spotPrices, long[] buyPrices, long[] sellPrices, int scale) {
+            this.timestamps = timestamps;
+            this.spotPrices = spotPrices;
+            this.buyPrices = buyPrices;
+            this.sellPrices = sellPrices;
+            this.scale = scale;
+        }
+
+        int length() {
+            return timestamps.length;
+        }
+
+        Columns grow(int newLength) {
+            return new Columns(
+                    Arrays.copyOf(timestamps, newLength),
+                    Arrays.copyOf(spotPrices, newLength),
+                    Arrays.copyOf(buyPrices, newLength),
+                    Arrays.copyOf(sellPrices, newLength),
+                    scale);
+        }
+
+        /**
+         * Copy of the columns at another scale, or null if a price would not fit a long
+         */
+        Columns rescale(int newScale) {
+            try {
+                return new Columns(timestamps.clone(), rescale(spotPrices, newScale),
+                        rescale(buyPrices, newScale), rescale(sellPrices, newScale), newScale);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        private long[] rescale(long[] prices, int newScale) {
+            long[] rescaled = new long[prices.length];
+            for (int i = 0; i < prices.length; i++) {
+                rescaled[i] = FixedPointPrice.rescale(prices[i], scale, newScale);
+            }
+            return rescaled;
+        }
+    }
+
+    /**
+     * Point-in-time copy of the buffer in chronological order
+     */
+    static final class Snapshot {
+        static final long NO_MORE = Long.MIN_VALUE;
+
+        private final long[] timestamps;
+        private final long[] spotPrices;
+        private final long[] buyPrices;
+        private final long[] sellPrices;
+        private final int scale;
+        private final int size;
+        private final long nextTimestamp;
+
+        private Snapshot(long[] timestamps, long[] spotPrices, long[] buyPrices, long[] sellPrices,
+                         int scale, int size, long nextTimestamp) {
+            this.timestamps = timestamps;
+            this.spotPrices = spotPrices;
+            this.buyPrices = buyPrices;
+            this.sellPrices = sellPrices;
+            this.scale = scale;
+            this.size = size;
+            this.nextTimestamp = nextTimestamp;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** Scale of the copied prices */
+        int scale() {
+            return scale;
+        }
+
+        boolean hasMore() {
+            return nextTimestamp != NO_MORE;
+        }
+
+        long nextTimestamp() {
+            return nextTimestamp;
+        }
+
+        long timestamp(int index) {
+            return timestamps[index];
+        }
+
+        long spotPrice(int index) {
+            return spotPrices[index];
+        }
+
+        long buyPrice(int index) {
+            return buyPrices[index];
+        }
+
+        long sellPrice(int index) {
+            return sellPrices[index];
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.tracker.service;
+
+import com.tracker.model.DailyPriceRollup;
+import com.tracker.model.PriceRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Daily rollups of the raw price records, kept far longer than the raw table so long windows
+ * read one item per day. Each stored record is merged into its day's rollup with one UpdateItem
+ * that adds to the sum and count and moves the close forward. Only when a record sets a new
+ * high, low or open does a second, conditional update follow.
+ *
+ * <p>ADD is not idempotent, and the same merge can arrive twice: the SDK resends an UpdateItem
+ * whose response was lost, and a record written twice under one key is reported stored twice.
+ * Every merge therefore adds the record's time to the rollup's {@code merged} set, on condition
+ * that it is not there yet. A failed condition on an already merged record changes nothing. The
+ * set costs about ten bytes per record, so a day holds tens of thousands of records well within
+ * the item size limit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PriceRollupService {
+
+    /** Every rollup attribute except the merged set, which readers never need */
+    private static final String[] ROLLUP_ATTRIBUTES = {"symbol", "day", "open", "high", "low", "close",
+            "openTime", "closeTime", "sum", "count", "dailyChangePercent", "ttl"};
+
+    private final DynamoDbTable<DailyPriceRollup> rollupTable;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Value("${price-history.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${price-history.rollup.retention-days:730}")
+    private int retentionDays;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Merge a stored record into the rollup of its market day without blocking. The returned
+     * future never fails; failures are logged so a rollup problem does not fail the raw write.
+     */
+    public CompletableFuture<Void> record(LocalDate day, PriceRecord record) {
+        if (!enabled || (record.getSellPrice() == null && record.getDailyChangePercent() == null)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return merge(day, record, true)
+                .exceptionallyCompose(e -> isConditionalCheckFailure(e)
+                        // Older than the day's close, or already merged; merge it without moving the close
+                        ? merge(day, record, false)
+                        : CompletableFuture.<Map<String, AttributeValue>>failedFuture(e))
+                .exceptionallyCompose(e -> isConditionalCheckFailure(e)
+                        // Already merged; the extremes may still be missing if the response was lost
+                        ? CompletableFuture.completedFuture(currentItem(e))
+                        : CompletableFuture.<Map<String, AttributeValue>>failedFuture(e))
+                .thenCompose(rollup -> updateExtremes(day, record, rollup))
+                .exceptionally(e -> {
+                    log.warn("Failed to update the {} rollup for {}: {}", day, record.getSymbol(), e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Rollups of a symbol from {@code fromDay} on, oldest first
+     */
+    public List<DailyPriceRollup> getRollups(String normalizedSymbol, LocalDate fromDay) {
+        QueryConditional queryConditional = QueryConditional.sortGreaterThanOrEqualTo(
+                Key.builder()
+                        .partitionValue(normalizedSymbol)
+                        .sortValue(fromDay.toString())
+                        .build()
+        );
+
+        List<DailyPriceRollup> rollups = new ArrayList<>();
+        rollupTable.query(QueryEnhancedRequest.builder()
+                        .queryConditional(queryConditional)
+                        .attributesToProject(ROLLUP_ATTRIBUTES)
+                        .build())
+                .items()
+                .forEach(rollups::add);
+        return rollups;
+    }
+
+    /**
+     * The single UpdateItem of a merge: sum, count, TTL and change percent, the open, high and
+     * low of a new day, and the close if {@code moveClose}. It is conditional on the record not
+     * being merged yet and, when moving the close, on the record not being older than the
+     * current close. Completes with the updated rollup.
+     */
+    private CompletableFuture<Map<String, AttributeValue>> merge(LocalDate day, PriceRecord record, boolean moveClose) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> sets = new ArrayList<>();
+        List<String> adds = new ArrayList<>();
+
+        String marker = Long.toString(record.getTimestamp().toEpochMilli(), Character.MAX_RADIX);
+        names.put("#merged", "merged");
+        values.put(":merged", AttributeValue.fromSs(List.of(marker)));
+        values.put(":marker", AttributeValue.fromS(marker));
+        adds.add("#merged :merged");
+        String condition = "NOT contains(#merged, :marker)";
+
+        names.put("#ttl", "ttl");
+        values.put(":ttl", number(Instant.now().plus(Duration.ofDays(retentionDays)).getEpochSecond()));
+        sets.add("#ttl = :ttl");
+
+        BigDecimal price = record.getSellPrice();
+        if (price != null) {
+            names.put("#sum", "sum");
+            names.put("#count", "count");
+            names.put("#open", "open");
+            names.put("#openTime", "openTime");
+            names.put("#high", "high");
+            names.put("#low", "low");
+            values.put(":price", AttributeValue.fromN(price.toPlainString()));
+            values.put(":one", number(1));
+            values.put(":time", number(record.getTimestamp().toEpochMilli()));
+            adds.add("#sum :price");
+            adds.add("#count :one");
+            sets.add("#open = if_not_exists(#open, :price)");
+            sets.add("#openTime = if_not_exists(#openTime, :time)");
+            sets.add("#high = if_not_exists(#high, :price)");
+            sets.add("#low = if_not_exists(#low, :price)");
+            if (moveClose) {
+                names.put("#close", "close");
+                names.put("#closeTime", "closeTime");
+                sets.add("#close = :price");
+                sets.add("#closeTime = :time");
+            }
+        }
+        if (record.getDailyChangePercent() != null) {
+            names.put("#dailyChangePercent", "dailyChangePercent");
+            values.put(":change", AttributeValue.fromN(record.getDailyChangePercent().toPlainString()));
+            sets.add("#dailyChangePercent = :change");
+        }
+
+        UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+                .tableName(rollupTable.tableName())
+                .key(keyOf(record.getSymbol(), day))
+                .updateExpression("ADD " + String.join(", ", adds) + " SET " + String.join(", ", sets))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD);
+        if (price != null && moveClose) {
+            condition += " AND (attribute_not_exists(#closeTime) OR #closeTime <= :time)";
+        }
+        request.conditionExpression(condition);
+        return dynamoDbAsyncClient.updateItem(request.build()).thenApply(UpdateItemResponse::attributes);
+    }
+
+    /**
+     * Conditional follow-up updates for a record that is a new high, a new low or earlier than
+     * the day's open. A failed condition means another writer already went further.
+     */
+    private CompletableFuture<Void> updateExtremes(LocalDate day, PriceRecord record, Map<String, AttributeValue> rollup) {
+        BigDecimal price = record.getSellPrice();
+        if (price == null || !rollup.containsKey("high")) {
+            return CompletableFuture.completedFuture(null);
+        }
+        AttributeValue priceValue = AttributeValue.fromN(price.toPlainString());
+        AttributeValue timeValue = number(record.getTimestamp().toEpochMilli());
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+
+        if (price.compareTo(new BigDecimal(rollup.get("high").n())) > 0) {
+            updates.add(updateIf(day, record, "SET #high = :price", "#high < :price",
+                    Map.of("#high", "high"), Map.of(":price", priceValue)));
+        }
+        if (price.compareTo(new BigDecimal(rollup.get("low").n())) < 0) {
+            updates.add(updateIf(day, record, "SET #low = :price", "#low > :price",
+                    Map.of("#low", "low"), Map.of(":price", priceValue)));
+        }
+        if (record.getTimestamp().toEpochMilli() < Long.parseLong(rollup.get("openTime").n())) {
+            updates.add(updateIf(day, record, "SET #open = :price, #openTime = :time", "#openTime > :time",
+                    Map.of("#open", "open", "#openTime", "openTime"), Map.of(":price", priceValue, ":time", timeValue)));
+        }
+        return CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> updateIf(LocalDate day, PriceRecord record, String update, String condition,
+                                             Map<String, String> names, Map<String, AttributeValue> values) {
+        return dynamoDbAsyncClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(rollupTable.tableName())
+                        .key(keyOf(record.getSymbol(), day))
+                        .updateExpression(update)
+                        .conditionExpression(condition)
+                        .expressionAttributeNames(names)
+                        .expressionAttributeValues(values)
+                        .build())
+                .<Void>thenApply(response -> null)
+                .exceptionally(e -> {
+                    if (isConditionalCheckFailure(e)) {
+                        return null;
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
+    }
+
+    private static Map<String, AttributeValue> keyOf(String normalizedSymbol, LocalDate day) {
+        return Map.of("symbol", AttributeValue.fromS(normalizedSymbol), "day", AttributeValue.fromS(day.toString()));
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+
+    private static boolean isConditionalCheckFailure(Throwable e) {
+        return unwrap(e) instanceof ConditionalCheckFailedException;
+    }
+
+    /**
+     * The rollup as it was when a merge's condition failed, or an empty map if not returned
+     */
+    private static Map<String, AttributeValue> currentItem(Throwable e) {
+        ConditionalCheckFailedException failure = (ConditionalCheckFailedException) unwrap(e);
+        return failure.hasItem() ? failure.item() : Map.of();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,109 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multicasts tracker samples to live subscribers. Each symbol has one hot sink fed by its
+ * sampler, so upstream traffic stays per symbol no matter how many clients are listening.
+ * Every subscriber gets its own bounded buffer: a slow client drops its oldest pending
+ * samples instead of holding back the sampler or the other subscribers. A symbol's sink is
+ * released when its last subscriber leaves.
+ */
+@Slf4j
+@Component
+public class PriceSampleBroadcaster {
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Map<String, PriceResponse> latestSamples = new ConcurrentHashMap<>();
+    private final AtomicLong droppedSamples = new AtomicLong();
+
+    @Value("${tracker.stream.client-buffer:16}")
+    private int clientBufferSize;
+
+    public void publish(String normalizedSymbol, PriceResponse sample) {
+        latestSamples.put(normalizedSymbol, sample);
+        Channel channel = channels.get(normalizedSymbol);
+        if (channel == null || channel.sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        Sinks.Many<PriceResponse> sink = channel.sink;
+
+        // A symbol can be sampled from the scheduler and from startTracking at the same time
+        Sinks.EmitResult result;
+        synchronized (sink) {
+            result = sink.tryEmitNext(sample);
+        }
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.debug("Failed to publish sample for {}: {}", normalizedSymbol, result);
+        }
+    }
+
+    /**
+     * Live samples for a normalized symbol, starting with the latest one and buffered per subscriber
+     */
+    public Flux<PriceResponse> subscribe(String normalizedSymbol) {
+        return Flux.defer(() -> {
+            Channel channel = channels.compute(normalizedSymbol, (symbol, existing) -> {
+                Channel joined = existing != null ? existing : new Channel();
+                joined.subscribers++;
+                return joined;
+            });
+            Flux<PriceResponse> live = channel.sink.asFlux();
+            PriceResponse latest = latestSamples.get(normalizedSymbol);
+            return (latest != null ? live.startWith(latest) : live)
+                    .doFinally(signal -> release(normalizedSymbol, channel));
+        }).onBackpressureBuffer(clientBufferSize,
+                dropped -> droppedSamples.incrementAndGet(),
+                BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * Complete every open stream for a symbol that is no longer tracked
+     */
+    public void close(String normalizedSymbol) {
+        latestSamples.remove(normalizedSymbol);
+        Channel channel = channels.remove(normalizedSymbol);
+        if (channel != null) {
+            synchronized (channel.sink) {
+                channel.sink.tryEmitComplete();
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return channels.values().stream()
+                .mapToInt(channel -> channel.sink.currentSubscriberCount())
+                .sum();
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+
+    /**
+     * Drop a subscriber and release the channel with its last one. A channel already closed
+     * and replaced is left alone.
+     */
+    private void release(String normalizedSymbol, Channel channel) {
+        channels.computeIfPresent(normalizedSymbol, (symbol, current) ->
+                current != channel || --current.subscribers > 0 ? current : null);
+    }
+
+    /**
+     * A symbol's sink and its subscriber count, only changed inside a map compute
+     */
+    private static final class Channel {
+        private final Sinks.Many<PriceResponse> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;
+    }
+}
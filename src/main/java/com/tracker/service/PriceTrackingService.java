@@ -1,43 +1,133 @@
 package com.tracker.service;
 
+import com.tracker.model.FixedPointPrice;
+import com.tracker.model.PriceBars;
 import com.tracker.model.PriceHistory;
 import com.tracker.model.PriceResponse;
 import com.tracker.model.TrackingStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PriceTrackingService {
 
+    private static final Pattern STEP_PATTERN = Pattern.compile("(\\d+)([smhd])");
+
     private final CoinbaseService coinbaseService;
+    private final TickerFeedService tickerFeedService;
+    private final TimeSeriesStore timeSeriesStore;
+    private final PriceSampleBroadcaster sampleBroadcaster;
 
     private final Set<String> trackedSymbols = ConcurrentHashMap.newKeySet();
-    private final Map<String, List<PriceHistory.PricePoint>> priceHistoryMap = new ConcurrentHashMap<>();
+    private final Map<String, PriceRingBuffer> priceHistoryMap = new ConcurrentHashMap<>();
+    private final Map<String, PriceBarAggregator> priceBarsMap = new ConcurrentHashMap<>();
+    private final Map<String, StreamHold> streamHolds = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean rateLimitWarned = new AtomicBoolean();
+
+    private ShardedSampler sampler;
 
     @Value("${tracker.history.max-records:100}")
     private int maxHistoryRecords;
 
+    @Value("${tracker.history.default-limit:1000}")
+    private int defaultHistoryLimit;
+
+    @Value("${tracker.history.max-limit:10000}")
+    private int maxHistoryLimit;
+
+    @Value("${tracker.bars.max-bars:500}")
+    private int maxBars;
+
+    @Value("${tracker.sampler.interval-seconds:30}")
+    private int samplerIntervalSeconds;
+
+    @Value("${tracker.sampler.shards:4}")
+    private int samplerShards;
+
+    @Value("${tracker.sampler.virtual-threads:true}")
+    private boolean samplerVirtualThreads;
+
+    @Value("${tracker.sampler.max-threads:64}")
+    private int samplerMaxThreads;
+
+    @PostConstruct
+    public void init() {
+        sampler = new ShardedSampler(samplerShards, samplerIntervalSeconds * 1000L,
+                samplerVirtualThreads, samplerMaxThreads, this::recordCurrentPrice);
+
+        if (timeSeriesStore.isEnabled()) {
+            recoverFromStore();
+            warnIfOverRateLimit();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sampler.shutdown();
+    }
+
     public void startTracking(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
+        track(normalizedSymbol);
+
+        // Tracking asked for explicitly outlives the streams that may have started it
+        StreamHold hold = streamHolds.get(normalizedSymbol);
+        if (hold != null) {
+            synchronized (hold) {
+                hold.startedTracking = false;
+            }
+        }
+    }
+
+    private void track(String normalizedSymbol) {
         trackedSymbols.add(normalizedSymbol);
-        priceHistoryMap.putIfAbsent(normalizedSymbol, Collections.synchronizedList(new ArrayList<>()));
-        log.info("Started tracking symbol: {}", normalizedSymbol);
+        priceHistoryMap.computeIfAbsent(normalizedSymbol, k -> new PriceRingBuffer(maxHistoryRecords));
+        tickerFeedService.subscribe(normalizedSymbol);
 
-        recordCurrentPrice(normalizedSymbol);
+        if (!sampler.isScheduled(normalizedSymbol)) {
+            try {
+                recordCurrentPrice(normalizedSymbol);
+            } catch (RuntimeException e) {
+                log.error("Failed to record price for {}: {}", normalizedSymbol, e.getMessage());
+            }
+            sampler.schedule(normalizedSymbol);
+        }
+        warnIfOverRateLimit();
+        log.info("Started tracking symbol: {}", normalizedSymbol);
     }
 
     public void stopTracking(String symbol) {
         String normalizedSymbol = normalizeSymbol(symbol);
         trackedSymbols.remove(normalizedSymbol);
-        priceHistoryMap.remove(normalizedSymbol);
+        sampler.cancel(normalizedSymbol);
+        PriceRingBuffer history = priceHistoryMap.remove(normalizedSymbol);
+        if (history != null) {
+            // Waits for a sample writing under this buffer; later samples see it is gone
+            synchronized (history) {
+                clearSymbol(normalizedSymbol);
+            }
+        } else {
+            clearSymbol(normalizedSymbol);
+        }
+        tickerFeedService.unsubscribe(normalizedSymbol);
         log.info("Stopped tracking symbol: {}", normalizedSymbol);
     }
 
@@ -54,60 +144,321 @@ public class PriceTrackingService {
     }
 
     public PriceHistory getPriceHistory(String symbol) {
+        return getPriceHistory(symbol, null, null, null, null, null);
+    }
+
+    /**
+     * Query tracked history by time range. {@code from}/{@code to} are ISO-8601 instants,
+     * {@code step} thins the result to at most one sample per step (e.g. 30s, 5m, 1h or PT5M),
+     * and {@code cursor} continues from the {@code nextCursor} of a previous page.
+     */
+    public PriceHistory getPriceHistory(String symbol, String from, String to, Integer limit, String step, String cursor) {
         String normalizedSymbol = normalizeSymbol(symbol);
 
         if (!isTracking(symbol)) {
             startTracking(symbol);
         }
 
-        recordCurrentPrice(normalizedSymbol);
+        long fromMillis = cursor != null ? parseCursor(cursor) : from != null ? parseInstant("from", from) : Long.MIN_VALUE;
+        long toMillis = to != null ? parseInstant("to", to) : Long.MAX_VALUE;
+        long stepMillis = step != null ? parseStep(step) : 0;
+        int pageSize = limit != null ? limit : defaultHistoryLimit;
+        if (pageSize <= 0 || pageSize > maxHistoryLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxHistoryLimit);
+        }
 
-        List<PriceHistory.PricePoint> history = priceHistoryMap.getOrDefault(
-                normalizedSymbol, Collections.emptyList());
+        PriceRingBuffer history = priceHistoryMap.get(normalizedSymbol);
 
         String[] parts = normalizedSymbol.split("-");
+        String currency = parts.length > 1 ? parts[1] : "USD";
+
+        List<PriceHistory.PricePoint> points = new ArrayList<>();
+        String nextCursor = null;
+        if (history != null && startsBeforeBuffer(history, fromMillis)) {
+            // Older samples were evicted from the heap; page through the mapped segments instead
+            long next = timeSeriesStore.readRange(normalizedSymbol, fromMillis, toMillis, pageSize, stepMillis,
+                    (timestamp, spot, buy, sell, scale) -> points.add(toPricePoint(timestamp, spot, buy, sell, scale)));
+            if (next != TimeSeriesStore.NO_MORE) {
+                nextCursor = Long.toString(next);
+            }
+        } else if (history != null) {
+            PriceRingBuffer.Snapshot snapshot = history.range(fromMillis, toMillis, pageSize, stepMillis);
+            for (int i = 0; i < snapshot.size(); i++) {
+                points.add(toPricePoint(snapshot, i));
+            }
+            if (snapshot.hasMore()) {
+                nextCursor = Long.toString(snapshot.nextTimestamp());
+            }
+        }
+
         return PriceHistory.builder()
                 .symbol(parts[0])
-                .currency(parts.length > 1 ? parts[1] : "USD")
-                .history(new ArrayList<>(history))
-                .totalRecords(history.size())
+                .currency(currency)
+                .history(points)
+                .totalRecords(points.size())
+                .nextCursor(nextCursor)
                 .build();
     }
 
-    public PriceResponse recordAndGetPrice(String symbol) {
+    public PriceBars getPriceBars(String symbol, String intervalCode) {
+        PriceBars.Interval interval = PriceBars.Interval.fromCode(intervalCode);
         String normalizedSymbol = normalizeSymbol(symbol);
 
-        if (isTracking(symbol)) {
-            recordCurrentPrice(normalizedSymbol);
+        if (!isTracking(symbol)) {
+            startTracking(symbol);
         }
 
-        return coinbaseService.getAllPrices(normalizedSymbol);
+        String[] parts = normalizedSymbol.split("-");
+        String currency = parts.length > 1 ? parts[1] : "USD";
+
+        List<PriceBars.Bar> bars = new ArrayList<>();
+        PriceBarAggregator aggregator = priceBarsMap.get(normalizedSymbol);
+        if (aggregator != null) {
+            PriceBarAggregator.BarSnapshot snapshot = aggregator.snapshot(interval);
+            int scale = snapshot.scale;
+            for (int i = 0; i < snapshot.size(); i++) {
+                bars.add(PriceBars.Bar.builder()
+                        .startTime(Instant.ofEpochMilli(snapshot.starts[i]))
+                        .open(FixedPointPrice.toBigDecimal(snapshot.opens[i], scale))
+                        .high(FixedPointPrice.toBigDecimal(snapshot.highs[i], scale))
+                        .low(FixedPointPrice.toBigDecimal(snapshot.lows[i], scale))
+                        .close(FixedPointPrice.toBigDecimal(snapshot.closes[i], scale))
+                        .count(snapshot.counts[i])
+                        .build());
+            }
+        }
+
+        return PriceBars.builder()
+                .symbol(parts[0])
+                .currency(currency)
+                .interval(interval.getCode())
+                .bars(bars)
+                .totalBars(bars.size())
+                .build();
     }
 
-    private void recordCurrentPrice(String normalizedSymbol) {
-        try {
-            PriceResponse prices = coinbaseService.getAllPrices(normalizedSymbol);
+    /**
+     * Live samples for a symbol, starting with the latest one. A symbol that is not tracked is
+     * tracked while it has streams, and no longer once the last one ends.
+     */
+    public Flux<PriceResponse> streamPrices(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        return Flux.defer(() -> {
+            StreamHold hold = holdForStream(normalizedSymbol);
+            return sampleBroadcaster.subscribe(normalizedSymbol)
+                    .doFinally(signal -> releaseStream(normalizedSymbol, hold));
+        });
+    }
+
+    /**
+     * Sampler load per shard: symbols, in-flight samples, dispatch lag and skipped samples
+     */
+    public Map<String, Object> getSamplerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executor", sampler.isVirtualThreads() ? "virtual" : "platform");
+        stats.put("intervalSeconds", samplerIntervalSeconds);
+        stats.put("shards", sampler.shardStats());
+        return stats;
+    }
 
-            PriceHistory.PricePoint point = PriceHistory.PricePoint.builder()
-                    .spotPrice(prices.getSpotPrice())
-                    .buyPrice(prices.getBuyPrice())
-                    .sellPrice(prices.getSellPrice())
-                    .timestamp(Instant.now())
-                    .build();
+    public int getStreamSubscriberCount() {
+        return sampleBroadcaster.getSubscriberCount();
+    }
 
-            List<PriceHistory.PricePoint> history = priceHistoryMap.computeIfAbsent(
-                    normalizedSymbol, k -> Collections.synchronizedList(new ArrayList<>()));
+    public PriceResponse recordAndGetPrice(String symbol) {
+        // Tracked symbols are sampled in the background, so reads no longer record
+        return coinbaseService.getAllPrices(normalizeSymbol(symbol));
+    }
 
-            history.add(point);
+    /**
+     * Reload the newest samples of every stored symbol into memory and resume tracking them
+     */
+    private void recoverFromStore() {
+        for (String normalizedSymbol : timeSeriesStore.symbols()) {
+            PriceRingBuffer history = priceHistoryMap.computeIfAbsent(
+                    normalizedSymbol, k -> new PriceRingBuffer(maxHistoryRecords));
+            timeSeriesStore.readTail(normalizedSymbol, maxHistoryRecords, (timestamp, spot, buy, sell, scale) ->
+                    appendSample(normalizedSymbol, history, timestamp,
+                            FixedPointPrice.toBigDecimal(spot, scale),
+                            FixedPointPrice.toBigDecimal(buy, scale),
+                            FixedPointPrice.toBigDecimal(sell, scale)));
 
-            while (history.size() > maxHistoryRecords) {
-                history.remove(0);
+            trackedSymbols.add(normalizedSymbol);
+            tickerFeedService.subscribe(normalizedSymbol);
+            sampler.schedule(normalizedSymbol);
+            log.info("Recovered {} stored samples for {}", history.size(), normalizedSymbol);
+        }
+    }
+
+    /**
+     * Count a new stream for a symbol, tracking the symbol if nothing does yet. A hold is
+     * unmapped only after the tracking it started is stopped, so a stream that finds an
+     * unmapped hold retries and starts tracking afresh.
+     */
+    private StreamHold holdForStream(String normalizedSymbol) {
+        while (true) {
+            StreamHold hold = streamHolds.computeIfAbsent(normalizedSymbol, k -> new StreamHold());
+            synchronized (hold) {
+                if (streamHolds.get(normalizedSymbol) != hold) {
+                    continue;
+                }
+                if (hold.streams++ == 0 && !isTracking(normalizedSymbol)) {
+                    track(normalizedSymbol);
+                    hold.startedTracking = true;
+                }
+                return hold;
+            }
+        }
+    }
+
+    private void releaseStream(String normalizedSymbol, StreamHold hold) {
+        synchronized (hold) {
+            if (--hold.streams > 0) {
+                return;
             }
+            if (hold.startedTracking && isTracking(normalizedSymbol)) {
+                stopTracking(normalizedSymbol);
+            }
+            streamHolds.remove(normalizedSymbol, hold);
+        }
+    }
+
+    private void clearSymbol(String normalizedSymbol) {
+        priceBarsMap.remove(normalizedSymbol);
+        timeSeriesStore.delete(normalizedSymbol);
+        sampleBroadcaster.close(normalizedSymbol);
+    }
+
+    /**
+     * Take one sample. Failures are thrown so the sampler counts them.
+     *
+     * <p>A sample already running when its symbol stops being tracked must not bring the symbol
+     * back. The writes therefore hold the symbol's ring buffer as a lock and only go ahead while
+     * that buffer is still the tracked one. stopTracking unmaps the buffer and then clears the
+     * bars, the store and the stream under the same lock, so a sample either finishes before
+     * the cleanup or writes nothing. Other symbols never wait on this lock.
+     */
+    private void recordCurrentPrice(String normalizedSymbol) {
+        if (!trackedSymbols.contains(normalizedSymbol)) {
+            return;
+        }
+        PriceResponse prices = fetchSample(normalizedSymbol);
+        long timestamp = Instant.now().toEpochMilli();
+
+        PriceRingBuffer history = priceHistoryMap.get(normalizedSymbol);
+        if (history == null) {
+            log.debug("Dropping price sample for {} - no longer tracked", normalizedSymbol);
+            return;
+        }
+        synchronized (history) {
+            if (priceHistoryMap.get(normalizedSymbol) != history) {
+                log.debug("Dropping price sample for {} - no longer tracked", normalizedSymbol);
+                return;
+            }
+            int scale = appendSample(normalizedSymbol, history, timestamp,
+                    prices.getSpotPrice(), prices.getBuyPrice(), prices.getSellPrice());
+            timeSeriesStore.append(normalizedSymbol, timestamp,
+                    FixedPointPrice.fromBigDecimal(prices.getSpotPrice(), scale),
+                    FixedPointPrice.fromBigDecimal(prices.getBuyPrice(), scale),
+                    FixedPointPrice.fromBigDecimal(prices.getSellPrice(), scale),
+                    scale);
+            sampleBroadcaster.publish(normalizedSymbol, prices);
+        }
+
+        log.debug("Recorded price for {}: spot={}, buy={}, sell={}",
+                normalizedSymbol, prices.getSpotPrice(), prices.getBuyPrice(), prices.getSellPrice());
+    }
+
+    /**
+     * With the ticker feed enabled, samples come from the streamed quotes only, so thousands of
+     * tracked symbols cost no REST calls. Without it each sample makes three rate-limited
+     * REST calls, past the price cache: its TTL matches the sampling interval, so a cached
+     * quote would otherwise be recorded twice.
+     */
+    private PriceResponse fetchSample(String normalizedSymbol) {
+        if (!tickerFeedService.isEnabled()) {
+            return coinbaseService.getLivePrices(normalizedSymbol);
+        }
+        return coinbaseService.getStreamedPrices(normalizedSymbol)
+                .orElseThrow(() -> new IllegalStateException("No fresh ticker quote for " + normalizedSymbol));
+    }
+
+    /**
+     * Without the ticker feed, sampling is bounded by the REST rate limit: three calls per
+     * symbol per interval
+     */
+    private void warnIfOverRateLimit() {
+        if (tickerFeedService.isEnabled()) {
+            return;
+        }
+        long maxSymbols = (long) (coinbaseService.getRequestsPerSecond() * samplerIntervalSeconds / 3);
+        if (trackedSymbols.size() > maxSymbols && rateLimitWarned.compareAndSet(false, true)) {
+            log.warn("Tracking {} symbols needs more REST calls than the rate limit allows ({} symbols per "
+                    + "{}s interval); enable coinbase.feed or raise coinbase.api.rate-limit.requests-per-second",
+                    trackedSymbols.size(), maxSymbols, samplerIntervalSeconds);
+        }
+    }
+
+    /**
+     * Add a sample to the symbol's buffer and bars and return the scale it was stored at. The
+     * scale comes from the quotes, so a sample keeps every decimal place it was quoted with.
+     */
+    private int appendSample(String normalizedSymbol, PriceRingBuffer history, long timestampMillis,
+                             BigDecimal spotPrice, BigDecimal buyPrice, BigDecimal sellPrice) {
+        int scale = history.adjustScale(FixedPointPrice.scaleFor(spotPrice, buyPrice, sellPrice),
+                FixedPointPrice.maxScale(spotPrice, buyPrice, sellPrice));
+        history.append(timestampMillis,
+                FixedPointPrice.fromBigDecimal(spotPrice, scale),
+                FixedPointPrice.fromBigDecimal(buyPrice, scale),
+                FixedPointPrice.fromBigDecimal(sellPrice, scale));
+        recordBarTick(normalizedSymbol, timestampMillis, spotPrice);
+        return scale;
+    }
+
+    private void recordBarTick(String normalizedSymbol, long timestampMillis, BigDecimal spotPrice) {
+        if (spotPrice != null) {
+            priceBarsMap.computeIfAbsent(normalizedSymbol, k -> new PriceBarAggregator(maxBars))
+                    .onTick(timestampMillis, spotPrice);
+        }
+    }
+
+    private long parseInstant(String name, String value) {
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " timestamp: " + value + ". Expected ISO-8601, e.g. 2024-01-15T10:30:00Z");
+        }
+    }
 
-            log.debug("Recorded price for {}: spot={}, buy={}, sell={}",
-                    normalizedSymbol, prices.getSpotPrice(), prices.getBuyPrice(), prices.getSellPrice());
-        } catch (Exception e) {
-            log.error("Failed to record price for {}: {}", normalizedSymbol, e.getMessage());
+    private long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private long parseStep(String step) {
+        Matcher matcher = STEP_PATTERN.matcher(step.trim().toLowerCase());
+        try {
+            Duration duration;
+            if (matcher.matches()) {
+                long amount = Long.parseLong(matcher.group(1));
+                duration = switch (matcher.group(2)) {
+                    case "s" -> Duration.ofSeconds(amount);
+                    case "m" -> Duration.ofMinutes(amount);
+                    case "h" -> Duration.ofHours(amount);
+                    default -> Duration.ofDays(amount);
+                };
+            } else {
+                duration = Duration.parse(step.trim().toUpperCase());
+            }
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("step must not be negative");
+            }
+            return duration.toMillis();
+        } catch (DateTimeParseException | ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid step: " + step + ". Expected e.g. 30s, 5m, 1h, 1d or PT5M");
         }
     }
 
@@ -117,4 +468,39 @@ public class PriceTrackingService {
         }
         return symbol.toUpperCase() + "-USD";
     }
+
+    /**
+     * Whether a range starting at {@code fromMillis} reaches samples the full ring buffer has
+     * already evicted, which only the time-series store still holds
+     */
+    private boolean startsBeforeBuffer(PriceRingBuffer history, long fromMillis) {
+        if (!timeSeriesStore.isEnabled() || history.size() < history.capacity()) {
+            return false;
+        }
+        PriceRingBuffer.Snapshot oldest = history.range(Long.MIN_VALUE, Long.MAX_VALUE, 1, 0);
+        return oldest.size() > 0 && fromMillis < oldest.timestamp(0);
+    }
+
+    /**
+     * Open streams of a symbol and whether they started its tracking
+     */
+    private static final class StreamHold {
+        private int streams;
+        private boolean startedTracking;
+    }
+
+    private PriceHistory.PricePoint toPricePoint(PriceRingBuffer.Snapshot snapshot, int index) {
+        return toPricePoint(snapshot.timestamp(index), snapshot.spotPrice(index),
+                snapshot.buyPrice(index), snapshot.sellPrice(index), snapshot.scale());
+    }
+
+    private PriceHistory.PricePoint toPricePoint(long timestamp, long spotPrice, long buyPrice, long sellPrice,
+                                                 int scale) {
+        return PriceHistory.PricePoint.builder()
+                .spotPrice(FixedPointPrice.toBigDecimal(spotPrice, scale))
+                .buyPrice(FixedPointPrice.toBigDecimal(buyPrice, scale))
+                .sellPrice(FixedPointPrice.toBigDecimal(sellPrice, scale))
+                .timestamp(Instant.ofEpochMilli(timestamp))
+                .build();
+    }
 }
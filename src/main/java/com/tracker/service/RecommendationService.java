@@ -10,8 +10,10 @@ import com.tracker.model.TrendData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -35,10 +37,13 @@ public class RecommendationService {
             throw new RecommendationNotAvailableException(symbol, availableAt, daysRemaining);
         }
 
-        priceHistoryService.recordPrice(normalizedSymbol);
+        // Record the price and analyze the trend on the async data path while sentiment runs here
+        CompletableFuture<TrendData> trend = priceHistoryService.recordPriceAsync(normalizedSymbol)
+                .thenCompose(recorded -> priceHistoryService.analyzeTrendAsync(normalizedSymbol));
 
         SentimentResult sentimentResult = sentimentService.analyzeSentiment(normalizedSymbol);
-        TrendData trendData = priceHistoryService.analyzeTrend(normalizedSymbol);
+        // Blocking through Mono rethrows the original failure rather than a CompletionException
+        TrendData trendData = Mono.fromFuture(trend).block();
 
         RecommendationType recommendation = determineRecommendation(sentimentResult, trendData);
         String reasoning = buildReasoning(sentimentResult, trendData, recommendation);
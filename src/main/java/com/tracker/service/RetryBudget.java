@@ -0,0 +1,35 @@
+package com.tracker.service;
+
+/**
+ * Caps retries to a fraction of regular traffic. Each request deposits a fraction of a
+ * token and each retry withdraws a whole one, so retries cannot amplify an outage.
+ */
+class RetryBudget {
+
+    private final double depositPerRequest;
+    private final double maxBalance;
+
+    private double balance;
+
+    RetryBudget(double depositPerRequest, double maxBalance) {
+        this.depositPerRequest = depositPerRequest;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    synchronized void recordRequest() {
+        balance = Math.min(maxBalance, balance + depositPerRequest);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    synchronized double getBalance() {
+        return balance;
+    }
+}
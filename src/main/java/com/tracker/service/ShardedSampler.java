@@ -0,0 +1,260 @@
+package com.tracker.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs a periodic sample for each of many symbols. Symbols are hashed onto a fixed set of
+ * shards. Each shard has one timer thread, and that thread only dispatches due samples. The
+ * blocking upstream calls run on virtual threads when the JDK provides them, and on a
+ * bounded platform pool otherwise.
+ *
+ * <p>Each scheduled symbol holds a slot, the lowest one free, and its phase within the interval
+ * comes from the slot: slots 0, 1, 2, 3 start at 0, 1/2, 1/4 and 3/4 of the interval and so
+ * on, so however many symbols are scheduled their samples stay evenly spread.
+ *
+ * <p>A symbol never has more than one sample in flight. A slow upstream therefore shows up
+ * as shard lag and skipped samples, not as a growing queue.
+ */
+@Slf4j
+class ShardedSampler {
+
+    private final Shard[] shards;
+    private final ExecutorService workers;
+    private final boolean virtualThreads;
+    private final long intervalMillis;
+    private final Consumer<String> sampleTask;
+    /** Phase slots in use, across all shards */
+    private final BitSet slots = new BitSet();
+
+    ShardedSampler(int shardCount, long intervalMillis, boolean preferVirtualThreads,
+                   int maxPlatformThreads, Consumer<String> sampleTask) {
+        if (shardCount <= 0 || intervalMillis <= 0 || maxPlatformThreads <= 0) {
+            throw new IllegalArgumentException("Sampler shards, interval and threads must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.sampleTask = sampleTask;
+
+        ExecutorService virtualExecutor = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtualExecutor != null;
+        this.workers = virtualExecutor != null ? virtualExecutor : newPlatformExecutor(maxPlatformThreads);
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        log.info("Price sampler started with {} shards on {}", shardCount,
+                virtualThreads ? "virtual threads" : maxPlatformThreads + " platform threads");
+    }
+
+    /**
+     * Start sampling a symbol if it is not sampled already, at the phase of the lowest free slot
+     */
+    void schedule(String symbol) {
+        shardFor(symbol).schedule(symbol);
+    }
+
+    void cancel(String symbol) {
+        shardFor(symbol).cancel(symbol);
+    }
+
+    boolean isScheduled(String symbol) {
+        return shardFor(symbol).tasks.containsKey(symbol);
+    }
+
+    boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    List<Map<String, Object>> shardStats() {
+        List<Map<String, Object>> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            stats.add(shard.stats());
+        }
+        return stats;
+    }
+
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.timer.shutdownNow();
+        }
+        workers.shutdownNow();
+    }
+
+    private Shard shardFor(String symbol) {
+        return shards[Math.floorMod(symbol.hashCode(), shards.length)];
+    }
+
+    private int acquireSlot() {
+        synchronized (slots) {
+            int slot = slots.nextClearBit(0);
+            slots.set(slot);
+            return slot;
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        synchronized (slots) {
+            slots.clear(slot);
+        }
+    }
+
+    /**
+     * Offset of a slot within the interval: the slot's bits reversed, as a fraction of the
+     * interval (the base-2 van der Corput sequence)
+     */
+    static long phaseOf(int slot, long intervalMillis) {
+        double fraction = (Integer.reverse(slot) & 0xFFFFFFFFL) / 0x1p32;
+        return (long) (fraction * intervalMillis);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 (preview before that), so
+     * it is looked up reflectively to keep compiling against Java 17
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.info("Virtual threads are not available on this JDK; using a bounded sampler pool");
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int maxThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // At most one queued sample per symbol, so the queue is bounded by the tracked symbols
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "price-sampler-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class Task {
+        private final String symbol;
+        private final int slot;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        /** Only touched by the shard's timer thread */
+        private long dueMillis;
+        private ScheduledFuture<?> future;
+
+        private Task(String symbol, int slot) {
+            this.symbol = symbol;
+            this.slot = slot;
+        }
+    }
+
+    private final class Shard {
+        private final int index;
+        private final ScheduledExecutorService timer;
+        private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong maxLagMillis = new AtomicLong();
+        private volatile long lastLagMillis;
+
+        private Shard(int index) {
+            this.index = index;
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "price-sampler-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void schedule(String symbol) {
+            tasks.computeIfAbsent(symbol, k -> {
+                Task task = new Task(symbol, acquireSlot());
+                long phaseMillis = phaseOf(task.slot, intervalMillis);
+                long delayMillis = phaseMillis == 0 ? intervalMillis : phaseMillis;
+                task.dueMillis = System.currentTimeMillis() + delayMillis;
+                task.future = timer.scheduleAtFixedRate(() -> dispatch(task),
+                        delayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+                return task;
+            });
+        }
+
+        private void cancel(String symbol) {
+            Task task = tasks.remove(symbol);
+            if (task != null) {
+                task.future.cancel(false);
+                releaseSlot(task.slot);
+            }
+        }
+
+        private void dispatch(Task task) {
+            long dueMillis = task.dueMillis;
+            task.dueMillis = dueMillis + intervalMillis;
+
+            if (!task.inFlight.compareAndSet(false, true)) {
+                skipped.increment();
+                return;
+            }
+            try {
+                workers.execute(() -> run(task, dueMillis));
+            } catch (RejectedExecutionException e) {
+                task.inFlight.set(false);
+                skipped.increment();
+            }
+        }
+
+        private void run(Task task, long dueMillis) {
+            long lagMillis = Math.max(0, System.currentTimeMillis() - dueMillis);
+            lastLagMillis = lagMillis;
+            maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+
+            inFlight.incrementAndGet();
+            try {
+                sampleTask.accept(task.symbol);
+                completed.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Sample for {} failed: {}", task.symbol, e.getMessage());
+            } finally {
+                inFlight.decrementAndGet();
+                task.inFlight.set(false);
+            }
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("shard", index);
+            stats.put("symbols", tasks.size());
+            stats.put("inFlight", inFlight.get());
+            stats.put("lastLagMillis", lastLagMillis);
+            stats.put("maxLagMillis", maxLagMillis.get());
+            stats.put("completed", completed.sum());
+            stats.put("failed", failed.sum());
+            stats.put("skipped", skipped.sum());
+            return stats;
+        }
+    }
+}
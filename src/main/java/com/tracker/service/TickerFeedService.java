@@ -0,0 +1,214 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracker.model.TickerQuote;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams ticker updates from the Coinbase websocket feed into the {@link LastPriceBook}.
+ * The connection is re-established after any error or close, and every tracked symbol is
+ * re-subscribed on each new connection. Subscribe and unsubscribe messages come from request,
+ * sampler and reconnect threads, so every emit into the outbound sink is serialized.
+ */
+@Slf4j
+@Service
+public class TickerFeedService {
+
+    private final LastPriceBook lastPriceBook;
+    private final ObjectMapper objectMapper;
+    private final WebSocketClient webSocketClient = new ReactorNettyWebSocketClient();
+    private final Set<String> subscribedSymbols = ConcurrentHashMap.newKeySet();
+
+    @Value("${coinbase.feed.enabled:false}")
+    private boolean enabled;
+
+    @Value("${coinbase.feed.url:wss://ws-feed.exchange.coinbase.com}")
+    private String feedUrl;
+
+    @Value("${coinbase.feed.reconnect-delay-millis:2000}")
+    private long reconnectDelayMillis;
+
+    @Value("${coinbase.feed.symbols:}")
+    private List<String> initialSymbols;
+
+    private volatile Sinks.Many<String> outbound;
+    private Disposable connection;
+
+    public TickerFeedService(LastPriceBook lastPriceBook, ObjectMapper objectMapper) {
+        this.lastPriceBook = lastPriceBook;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Ticker feed disabled. Prices will be fetched from the Coinbase REST API.");
+            return;
+        }
+
+        initialSymbols.stream()
+                .filter(symbol -> !symbol.isBlank())
+                .map(this::normalizeSymbol)
+                .forEach(subscribedSymbols::add);
+
+        connection = Mono.defer(this::connect)
+                .doOnError(e -> log.warn("Ticker feed connection failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.delay(Duration.ofMillis(reconnectDelayMillis)))
+                .repeat()
+                .subscribe();
+        log.info("Ticker feed started against {}", feedUrl);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void subscribe(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        if (enabled && subscribedSymbols.add(normalizedSymbol)) {
+            send("subscribe", List.of(normalizedSymbol));
+        }
+    }
+
+    public void unsubscribe(String symbol) {
+        String normalizedSymbol = normalizeSymbol(symbol);
+        if (enabled && subscribedSymbols.remove(normalizedSymbol)) {
+            send("unsubscribe", List.of(normalizedSymbol));
+            lastPriceBook.remove(normalizedSymbol);
+        }
+    }
+
+    private Mono<Void> connect() {
+        return webSocketClient.execute(URI.create(feedUrl), session -> {
+            Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+            outbound = sink;
+
+            if (!subscribedSymbols.isEmpty()) {
+                emit(sink, buildMessage("subscribe", subscribedSymbols));
+            }
+            log.info("Connected to ticker feed, subscribing {} symbols", subscribedSymbols.size());
+
+            Mono<Void> send = session.send(sink.asFlux().map(session::textMessage));
+            Mono<Void> receive = session.receive()
+                    .map(WebSocketMessage::getPayloadAsText)
+                    .doOnNext(this::handleMessage)
+                    .then();
+
+            // Whichever side ends first tears down the session and triggers a reconnect
+            return Mono.firstWithSignal(send, receive)
+                    .doFinally(signal -> closeOutbound(sink, session));
+        });
+    }
+
+    private void closeOutbound(Sinks.Many<String> sink, WebSocketSession session) {
+        if (outbound == sink) {
+            outbound = null;
+        }
+        synchronized (sink) {
+            sink.tryEmitComplete();
+        }
+        log.info("Ticker feed session {} closed", session.getId());
+    }
+
+    /**
+     * Send a message on the current session. Without one the message is dropped; the next
+     * session subscribes every tracked symbol anyway.
+     */
+    private void send(String type, Collection<String> symbols) {
+        Sinks.Many<String> sink = outbound;
+        if (sink != null) {
+            emit(sink, buildMessage(type, symbols));
+        }
+    }
+
+    private void emit(Sinks.Many<String> sink, String message) {
+        Sinks.EmitResult result;
+        synchronized (sink) {
+            result = sink.tryEmitNext(message);
+        }
+        if (result.isFailure()) {
+            log.warn("Failed to send ticker feed message {}: {}", message, result);
+        }
+    }
+
+    private String buildMessage(String type, Collection<String> symbols) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "type", type,
+                    "product_ids", List.copyOf(symbols),
+                    "channels", List.of("ticker")
+            ));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build ticker feed message", e);
+        }
+    }
+
+    private void handleMessage(String payload) {
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            String type = message.path("type").asText();
+
+            if ("error".equals(type)) {
+                log.warn("Ticker feed error: {}", message.path("message").asText());
+                return;
+            }
+            if (!"ticker".equals(type)) {
+                return;
+            }
+
+            TickerQuote quote = TickerQuote.builder()
+                    .symbol(message.path("product_id").asText())
+                    .spotPrice(decimal(message, "price"))
+                    .buyPrice(decimal(message, "best_ask"))
+                    .sellPrice(decimal(message, "best_bid"))
+                    .time(message.hasNonNull("time") ? Instant.parse(message.get("time").asText()) : null)
+                    .receivedAt(Instant.now())
+                    .build();
+
+            lastPriceBook.update(quote);
+        } catch (Exception e) {
+            log.debug("Ignoring malformed ticker message: {}", e.getMessage());
+        }
+    }
+
+    private BigDecimal decimal(JsonNode message, String field) {
+        return message.hasNonNull(field) ? new BigDecimal(message.get(field).asText()) : null;
+    }
+
+    private String normalizeSymbol(String symbol) {
+        if (symbol.contains("-")) {
+            return symbol.toUpperCase();
+        }
+        return symbol.toUpperCase() + "-USD";
+    }
+}
@@ -0,0 +1,476 @@
+package com.tracker.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Embedded append-only store for tracked price samples. Each symbol has a directory of
+ * fixed-size segment files named after the timestamp of their first sample. The active
+ * segment is memory-mapped for appends and segments are mapped read-only for reads, so
+ * samples are served from the page cache rather than the heap.
+ *
+ * <p>Every record carries a checksum written with it. Recovery scans a segment up to the
+ * first record whose checksum does not match, which drops a record torn by a crash and
+ * resumes appending at that position.
+ *
+ * <p>A segment holds prices at one scale, kept in its header. When a symbol's scale changes
+ * the active segment is sealed and a new one started at the new scale.
+ */
+@Slf4j
+@Component
+public class TimeSeriesStore {
+
+    /** Receives one stored sample; prices are fixed-point longs at the given scale */
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(long timestampMillis, long spotPrice, long buyPrice, long sellPrice, int scale);
+    }
+
+    /** Returned by a paged range read that reached the end of the range */
+    public static final long NO_MORE = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x50525453; // "PRTS"
+    private static final int VERSION = 2;
+    /** Version 1 segments have no scale in their header and hold the old default of 8 decimals */
+    private static final int VERSION_1_SCALE = 8;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 40;
+    private static final long CHECKSUM_SEED = 0xCBF29CE484222325L;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("[A-Z0-9]+-[A-Z0-9]+");
+
+    @Value("${tracker.store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${tracker.store.directory:/tmp/price-tracker}")
+    private String directory;
+
+    @Value("${tracker.store.segment-records:65536}")
+    private int segmentRecords;
+
+    @Value("${tracker.store.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${tracker.store.sync-every:0}")
+    private int syncEvery;
+
+    private Path root;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        root = Paths.get(directory);
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create time-series store directory " + root, e);
+        }
+        log.info("Time-series store enabled at {}", root);
+    }
+
+    @PreDestroy
+    public void close() {
+        series.values().forEach(Series::sync);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * List the symbols that have stored samples
+     */
+    public Set<String> symbols() {
+        Set<String> symbols = ConcurrentHashMap.newKeySet();
+        if (!enabled) {
+            return symbols;
+        }
+
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (SYMBOL_PATTERN.matcher(name).matches()) {
+                    symbols.add(name);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list time-series store symbols: {}", e.getMessage());
+        }
+        return symbols;
+    }
+
+    public void append(String normalizedSymbol, long timestampMillis, long spotPrice, long buyPrice, long sellPrice,
+                       int scale) {
+        if (!enabled) {
+            return;
+        }
+        seriesFor(normalizedSymbol).append(timestampMillis, spotPrice, buyPrice, sellPrice, scale);
+    }
+
+    /**
+     * Stream samples with {@code fromMillis <= timestamp <= toMillis}, oldest first, keeping at
+     * most {@code limit} of them. With a positive {@code stepMillis}, each kept sample is the
+     * first one at least one step after the previous. Samples are read from the mapped segments,
+     * so only the kept ones reach the heap.
+     *
+     * @return the timestamp of the first sample the limit left out, or {@link #NO_MORE}
+     */
+    public long readRange(String normalizedSymbol, long fromMillis, long toMillis, int limit, long stepMillis,
+                          SampleConsumer consumer) {
+        if (!enabled || limit <= 0) {
+            return NO_MORE;
+        }
+
+        Series stored = existingSeries(normalizedSymbol);
+        if (stored == null) {
+            return NO_MORE;
+        }
+        int kept = 0;
+        long nextMillis = fromMillis;
+        List<Path> segments = stored.segments;
+        for (int i = 0; i < segments.size(); i++) {
+            long segmentStart = segmentStart(segments.get(i));
+            long nextStart = i + 1 < segments.size() ? segmentStart(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (segmentStart > toMillis) {
+                break;
+            }
+            if (nextStart <= fromMillis) {
+                continue;
+            }
+
+            MappedByteBuffer buffer = mapReadOnly(segments.get(i));
+            if (buffer == null) {
+                continue;
+            }
+            int count = validRecords(buffer);
+            int scale = scaleOf(buffer);
+            for (int r = 0; r < count; r++) {
+                int offset = HEADER_SIZE + r * RECORD_SIZE;
+                long timestamp = buffer.getLong(offset);
+                if (timestamp > toMillis) {
+                    return NO_MORE;
+                }
+                if (timestamp < nextMillis) {
+                    continue;
+                }
+                if (kept == limit) {
+                    return timestamp;
+                }
+                consumer.accept(timestamp, buffer.getLong(offset + 8),
+                        buffer.getLong(offset + 16), buffer.getLong(offset + 24), scale);
+                kept++;
+                nextMillis = stepMillis > 0 ? timestamp + stepMillis : timestamp;
+            }
+        }
+        return NO_MORE;
+    }
+
+    /**
+     * Stream the newest {@code limit} samples, oldest first. Only the segments needed to
+     * cover the limit are scanned.
+     */
+    public void readTail(String normalizedSymbol, int limit, SampleConsumer consumer) {
+        if (!enabled || limit <= 0) {
+            return;
+        }
+
+        Series stored = existingSeries(normalizedSymbol);
+        if (stored == null) {
+            return;
+        }
+        List<Path> segments = stored.segments;
+        List<MappedByteBuffer> needed = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        int total = 0;
+
+        for (int i = segments.size() - 1; i >= 0 && total < limit; i--) {
+            MappedByteBuffer buffer = mapReadOnly(segments.get(i));
+            if (buffer == null) {
+                continue;
+            }
+            int count = validRecords(buffer);
+            needed.add(0, buffer);
+            counts.add(0, count);
+            total += count;
+        }
+
+        int skip = Math.max(0, total - limit);
+        for (int s = 0; s < needed.size(); s++) {
+            MappedByteBuffer buffer = needed.get(s);
+            int count = counts.get(s);
+            int first = Math.min(skip, count);
+            int scale = scaleOf(buffer);
+            skip -= first;
+
+            for (int r = first; r < count; r++) {
+                int offset = HEADER_SIZE + r * RECORD_SIZE;
+                consumer.accept(buffer.getLong(offset), buffer.getLong(offset + 8),
+                        buffer.getLong(offset + 16), buffer.getLong(offset + 24), scale);
+            }
+        }
+    }
+
+    public void delete(String normalizedSymbol) {
+        if (!enabled) {
+            return;
+        }
+
+        Series removed = series.remove(normalizedSymbol);
+        Path dir = removed != null ? removed.dir : seriesDir(normalizedSymbol);
+        if (removed != null) {
+            removed.closeActive();
+        }
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("No stored samples to delete for {}", normalizedSymbol);
+        }
+    }
+
+    private Series seriesFor(String normalizedSymbol) {
+        return series.computeIfAbsent(normalizedSymbol, symbol -> new Series(seriesDir(symbol)));
+    }
+
+    /**
+     * The series of a symbol with stored samples, or null. Reads use this so they never create
+     * a directory for a symbol that has nothing stored.
+     */
+    private Series existingSeries(String normalizedSymbol) {
+        Series existing = series.get(normalizedSymbol);
+        if (existing != null) {
+            return existing;
+        }
+        return Files.isDirectory(seriesDir(normalizedSymbol)) ? seriesFor(normalizedSymbol) : null;
+    }
+
+    private Path seriesDir(String normalizedSymbol) {
+        if (!SYMBOL_PATTERN.matcher(normalizedSymbol).matches()) {
+            throw new IllegalArgumentException("Invalid symbol for time-series store: " + normalizedSymbol);
+        }
+        return root.resolve(normalizedSymbol);
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer mapReadOnly(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                log.warn("Ignoring segment with invalid header: {}", segment);
+                return null;
+            }
+            return buffer;
+        } catch (IOException e) {
+            log.warn("Failed to map segment {}: {}", segment, e.getMessage());
+            return null;
+        }
+    }
+
+    private static int scaleOf(MappedByteBuffer buffer) {
+        return buffer.getInt(4) == 1 ? VERSION_1_SCALE : buffer.getInt(16);
+    }
+
+    /**
+     * Count the records in the valid prefix of a segment
+     */
+    private static int validRecords(MappedByteBuffer buffer) {
+        int capacity = Math.min(buffer.getInt(12), (buffer.limit() - HEADER_SIZE) / RECORD_SIZE);
+        int count = 0;
+        while (count < capacity) {
+            int offset = HEADER_SIZE + count * RECORD_SIZE;
+            long timestamp = buffer.getLong(offset);
+            if (timestamp == 0 || buffer.getLong(offset + 32) != checksum(timestamp,
+                    buffer.getLong(offset + 8), buffer.getLong(offset + 16), buffer.getLong(offset + 24))) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static long checksum(long timestamp, long spot, long buy, long sell) {
+        long hash = mix(CHECKSUM_SEED, timestamp);
+        hash = mix(hash, spot);
+        hash = mix(hash, buy);
+        return mix(hash, sell);
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001B3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Segments of one symbol plus the memory-mapped active segment being appended to
+     */
+    private final class Series {
+        private final Path dir;
+        private final List<Path> segments = new CopyOnWriteArrayList<>();
+
+        private MappedByteBuffer active;
+        private int activeScale;
+        private int activeCapacity;
+        private int activeCount;
+        private int unsynced;
+
+        /**
+         * Open the series in {@code dir}. The directory is only created by the first append.
+         */
+        Series(Path dir) {
+            this.dir = dir;
+            if (!Files.isDirectory(dir)) {
+                return;
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .forEach(segments::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open time-series directory " + dir, e);
+            }
+            applyRetention();
+        }
+
+        synchronized void append(long timestampMillis, long spotPrice, long buyPrice, long sellPrice, int scale) {
+            try {
+                if (active == null) {
+                    openActive(timestampMillis, scale);
+                }
+                if (activeCount >= activeCapacity || scale != activeScale) {
+                    sync();
+                    createSegment(timestampMillis, scale);
+                    applyRetention();
+                }
+
+                int offset = HEADER_SIZE + activeCount * RECORD_SIZE;
+                active.putLong(offset, timestampMillis);
+                active.putLong(offset + 8, spotPrice);
+                active.putLong(offset + 16, buyPrice);
+                active.putLong(offset + 24, sellPrice);
+                active.putLong(offset + 32, checksum(timestampMillis, spotPrice, buyPrice, sellPrice));
+                activeCount++;
+
+                if (syncEvery > 0 && ++unsynced >= syncEvery) {
+                    sync();
+                }
+            } catch (IOException e) {
+                log.error("Failed to append sample to {}: {}", dir, e.getMessage());
+            }
+        }
+
+        synchronized void sync() {
+            if (active != null) {
+                active.force();
+                unsynced = 0;
+            }
+        }
+
+        synchronized void closeActive() {
+            sync();
+            active = null;
+        }
+
+        /**
+         * Resume the newest segment at the end of its valid prefix, or start a new one
+         */
+        private void openActive(long timestampMillis, int scale) throws IOException {
+            if (!segments.isEmpty()) {
+                Path last = segments.get(segments.size() - 1);
+                MappedByteBuffer buffer = mapReadWrite(last, 0);
+                if (buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC) {
+                    active = buffer;
+                    activeScale = scaleOf(buffer);
+                    activeCapacity = Math.min(buffer.getInt(12), (buffer.limit() - HEADER_SIZE) / RECORD_SIZE);
+                    activeCount = validRecords(buffer);
+                    return;
+                }
+            }
+            createSegment(timestampMillis, scale);
+        }
+
+        private void createSegment(long firstTimestampMillis, int scale) throws IOException {
+            // Segment names must stay unique and increasing even if two land on the same millisecond
+            long start = segments.isEmpty()
+                    ? firstTimestampMillis
+                    : Math.max(firstTimestampMillis, segmentStart(segments.get(segments.size() - 1)) + 1);
+            Files.createDirectories(dir);
+            Path segment = dir.resolve(String.format("%019d%s", start, SEGMENT_SUFFIX));
+            MappedByteBuffer buffer = mapReadWrite(segment, HEADER_SIZE + (long) segmentRecords * RECORD_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, segmentRecords);
+            buffer.putInt(16, scale);
+            buffer.force();
+
+            segments.add(segment);
+            active = buffer;
+            activeScale = scale;
+            activeCapacity = segmentRecords;
+            activeCount = 0;
+        }
+
+        private MappedByteBuffer mapReadWrite(Path segment, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(segment,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long mappedSize = Math.max(size, channel.size());
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            }
+        }
+
+        /**
+         * Delete sealed segments whose samples are all older than the retention window.
+         * A segment ends where the next one starts, so the newest segment is never removed.
+         */
+        private void applyRetention() {
+            long cutoff = Instant.now().minus(Duration.ofDays(retentionDays)).toEpochMilli();
+            while (segments.size() > 1 && segmentStart(segments.get(1)) < cutoff) {
+                Path expired = segments.remove(0);
+                try {
+                    Files.deleteIfExists(expired);
+                    log.debug("Deleted expired segment {}", expired);
+                } catch (IOException e) {
+                    log.warn("Failed to delete expired segment {}: {}", expired, e.getMessage());
+                }
+            }
+        }
+    }
+}
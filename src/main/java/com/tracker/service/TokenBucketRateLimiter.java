@@ -0,0 +1,47 @@
+package com.tracker.service;
+
+import java.time.Duration;
+
+/**
+ * Token bucket that hands out permits at a fixed rate with a bounded burst. Callers that
+ * find the bucket empty reserve a future token and are told how long to wait for it.
+ */
+class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double nanosPerToken;
+    private final long maxWaitNanos;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, Duration maxWait) {
+        this.capacity = burst;
+        this.nanosPerToken = 1_000_000_000d / permitsPerSecond;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserve one permit. Returns how long the caller must wait before using it, or -1 if
+     * the wait would exceed the configured maximum (in which case nothing is reserved).
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        long waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+}
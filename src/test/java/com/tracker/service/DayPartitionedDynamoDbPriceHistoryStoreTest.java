@@ -0,0 +1,13 @@
+package com.tracker.service;
+
+/**
+ * The store contract with records partitioned by symbol and UTC day, so ranges go through the
+ * query planner
+ */
+class DayPartitionedDynamoDbPriceHistoryStoreTest extends DynamoDbPriceHistoryStoreTest {
+
+    @Override
+    protected boolean partitionByDay() {
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Runs the store contract against DynamoDB Local, one fresh table per test
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DynamoDbPriceHistoryStoreTest extends PriceHistoryStoreContractTest {
+
+    @Container
+    private static final GenericContainer<?> DYNAMODB = new GenericContainer<>("amazon/dynamodb-local:2.2.1")
+            .withCommand("-jar", "DynamoDBLocal.jar", "-inMemory", "-sharedDb")
+            .withExposedPorts(8000);
+
+    private static final StaticCredentialsProvider CREDENTIALS =
+            StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test"));
+
+    /**
+     * Whether the store under test partitions records by symbol and day
+     */
+    protected boolean partitionByDay() {
+        return false;
+    }
+
+    @Override
+    protected PriceHistoryStore createStore() {
+        URI endpoint = URI.create("http://" + DYNAMODB.getHost() + ":" + DYNAMODB.getMappedPort(8000));
+        String tableName = "price-history-" + UUID.randomUUID();
+
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(DynamoDbClient.builder()
+                        .endpointOverride(endpoint)
+                        .region(Region.US_EAST_1)
+                        .credentialsProvider(CREDENTIALS)
+                        .build())
+                .build();
+        DynamoDbEnhancedAsyncClient enhancedAsyncClient = DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(DynamoDbAsyncClient.builder()
+                        .endpointOverride(endpoint)
+                        .region(Region.US_EAST_1)
+                        .credentialsProvider(CREDENTIALS)
+                        .build())
+                .build();
+
+        DynamoDbTable<PriceRecord> table = enhancedClient.table(tableName, TableSchema.fromBean(PriceRecord.class));
+        DynamoDbAsyncTable<PriceRecord> asyncTable =
+                enhancedAsyncClient.table(tableName, TableSchema.fromBean(PriceRecord.class));
+        table.createTable();
+
+        PriceRecordBatchWriter batchWriter = new PriceRecordBatchWriter(enhancedAsyncClient, asyncTable);
+        ReflectionTestUtils.setField(batchWriter, "maxRetries", 5);
+        ReflectionTestUtils.setField(batchWriter, "initialBackoffMillis", 50L);
+        ReflectionTestUtils.setField(batchWriter, "maxBackoffMillis", 2000L);
+        ReflectionTestUtils.setField(batchWriter, "flushIntervalMillis", 10L);
+
+        DynamoDbPriceHistoryStore store = new DynamoDbPriceHistoryStore(table, asyncTable, batchWriter);
+        ReflectionTestUtils.setField(store, "queryPageSize", 2);
+        ReflectionTestUtils.setField(store, "maxParallelPartitions", 2);
+        ReflectionTestUtils.setField(store, "partitionByDay", partitionByDay());
+        return store;
+    }
+}
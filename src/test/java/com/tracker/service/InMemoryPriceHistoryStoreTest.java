@@ -0,0 +1,9 @@
+package com.tracker.service;
+
+class InMemoryPriceHistoryStoreTest extends PriceHistoryStoreContractTest {
+
+    @Override
+    protected PriceHistoryStore createStore() {
+        return new InMemoryPriceHistoryStore();
+    }
+}
@@ -0,0 +1,166 @@
+package com.tracker.service;
+
+import com.tracker.model.PriceRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behavior every {@link PriceHistoryStore} backend must share. Each backend runs this suite
+ * through its own subclass.
+ */
+abstract class PriceHistoryStoreContractTest {
+
+    protected static final String SYMBOL = "BTC-USD";
+    protected static final Instant T0 = Instant.parse("2026-10-14T12:00:00Z");
+
+    protected PriceHistoryStore store;
+
+    /**
+     * A new, empty store
+     */
+    protected abstract PriceHistoryStore createStore();
+
+    @BeforeEach
+    void setUp() {
+        store = createStore();
+    }
+
+    @Test
+    void appendIfAbsentReturnsFalseForDuplicateKey() {
+        assertThat(store.appendIfAbsent(record(SYMBOL, T0, "100"))).isTrue();
+        assertThat(store.appendIfAbsent(record(SYMBOL, T0, "200"))).isFalse();
+        assertThat(store.appendIfAbsentAsync(record(SYMBOL, T0, "300")).join()).isFalse();
+
+        List<PriceRecord> records = store.range(SYMBOL, T0, T0);
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).getSellPrice()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void rangeBoundsAreInclusive() {
+        store.appendAll(List.of(
+                record(SYMBOL, T0, "100"),
+                record(SYMBOL, T0.plusSeconds(60), "101"),
+                record(SYMBOL, T0.plusSeconds(120), "102")));
+
+        assertThat(timestampsOf(store.range(SYMBOL, T0, T0.plusSeconds(120))))
+                .containsExactly(T0, T0.plusSeconds(60), T0.plusSeconds(120));
+        assertThat(timestampsOf(store.range(SYMBOL, T0.plusMillis(1), T0.plusSeconds(120).minusMillis(1))))
+                .containsExactly(T0.plusSeconds(60));
+        assertThat(timestampsOf(store.rangeAsync(SYMBOL, T0.plusSeconds(60), T0.plusSeconds(60)).join()))
+                .containsExactly(T0.plusSeconds(60));
+    }
+
+    @Test
+    void rangeReturnsRecordsOldestFirst() {
+        Instant twoDaysLater = T0.plus(Duration.ofDays(2));
+        store.appendAll(List.of(
+                record(SYMBOL, twoDaysLater, "103"),
+                record(SYMBOL, T0.plusSeconds(60), "101"),
+                record(SYMBOL, T0, "100")));
+        store.appendAsync(record(SYMBOL, T0.plus(Duration.ofDays(1)), "102")).join();
+
+        List<Instant> expected = List.of(T0, T0.plusSeconds(60), T0.plus(Duration.ofDays(1)), twoDaysLater);
+        assertThat(timestampsOf(store.range(SYMBOL, T0, twoDaysLater))).isEqualTo(expected);
+        assertThat(timestampsOf(store.rangeAsync(SYMBOL, T0, twoDaysLater).join())).isEqualTo(expected);
+    }
+
+    @Test
+    void rangeReturnsMutableRecordsOfTheLogicalSymbol() {
+        store.appendAll(List.of(record(SYMBOL, T0, "100"), record("ETH-USD", T0, "5")));
+
+        List<PriceRecord> records = store.range(SYMBOL, T0.minusSeconds(60), T0.plusSeconds(60));
+        assertThat(records).extracting(PriceRecord::getSymbol).containsExactly(SYMBOL);
+
+        records.add(record(SYMBOL, T0.plusSeconds(1), "1"));
+        assertThat(store.range(SYMBOL, T0.minusSeconds(60), T0.plusSeconds(60))).hasSize(1);
+        assertThat(store.range("SOL-USD", T0.minusSeconds(60), T0.plusSeconds(60))).isEmpty();
+    }
+
+    @Test
+    void latestRespectsFromAndTo() {
+        store.appendAll(List.of(record(SYMBOL, T0, "100"), record(SYMBOL, T0.plusSeconds(3600), "101")));
+
+        assertThat(store.latest(SYMBOL, T0, T0.plusSeconds(7200)).getTimestamp()).isEqualTo(T0.plusSeconds(3600));
+        assertThat(store.latest(SYMBOL, T0, T0.plusSeconds(1800)).getTimestamp()).isEqualTo(T0);
+        assertThat(store.latest(SYMBOL, T0.plusSeconds(3601), T0.plusSeconds(7200))).isNull();
+        assertThat(store.latestAsync(SYMBOL, T0.plusSeconds(3601), T0.plusSeconds(7200)).join()).isNull();
+        assertThat(store.latestAsync(SYMBOL, T0.minus(Duration.ofDays(2)), T0).join().getSymbol()).isEqualTo(SYMBOL);
+    }
+
+    @Test
+    void recentReturnsTheNewestRecordsOldestFirst() {
+        Instant twoDaysLater = T0.plus(Duration.ofDays(2));
+        store.appendAll(List.of(
+                record(SYMBOL, T0, "100"),
+                record(SYMBOL, T0.plus(Duration.ofDays(1)), "101"),
+                record(SYMBOL, twoDaysLater, "102"),
+                record(SYMBOL, twoDaysLater.plusSeconds(60), "103")));
+
+        assertThat(timestampsOf(store.recentAsync(SYMBOL, T0, twoDaysLater.plusSeconds(60), 3).join()))
+                .containsExactly(T0.plus(Duration.ofDays(1)), twoDaysLater, twoDaysLater.plusSeconds(60));
+        assertThat(timestampsOf(store.recentAsync(SYMBOL, T0, twoDaysLater, 10, "timestamp", "sellPrice").join()))
+                .containsExactly(T0, T0.plus(Duration.ofDays(1)), twoDaysLater);
+        assertThat(store.recentAsync("SOL-USD", T0, twoDaysLater, 10).join()).isEmpty();
+    }
+
+    @Test
+    void appendAllReplacesExistingItems() {
+        store.appendIfAbsent(record(SYMBOL, T0, "100"));
+
+        List<PriceRecord> unwritten = store.appendAll(List.of(record(SYMBOL, T0, "150"), record(SYMBOL, T0.plusSeconds(60), "151")));
+
+        assertThat(unwritten).isEmpty();
+        List<PriceRecord> records = store.range(SYMBOL, T0, T0.plusSeconds(60));
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getSellPrice()).isEqualByComparingTo("150");
+    }
+
+    @Test
+    void appendAllStoresTheLastRecordOfARepeatedKey() {
+        List<PriceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            records.add(record(SYMBOL, T0.plusSeconds(i), "100"));
+        }
+        records.add(record(SYMBOL, T0, "200"));
+
+        assertThat(store.appendAll(records)).isEmpty();
+        List<PriceRecord> stored = store.range(SYMBOL, T0, T0.plusSeconds(60));
+        assertThat(stored).hasSize(30);
+        assertThat(stored.get(0).getSellPrice()).isEqualByComparingTo("200");
+    }
+
+    @Test
+    void concurrentAppendsAreAllStored() {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            writes.add(store.appendAsync(record(SYMBOL, T0.plusSeconds(i), "100")));
+        }
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(store.range(SYMBOL, T0, T0.plusSeconds(60))).hasSize(40);
+    }
+
+    protected static PriceRecord record(String symbol, Instant timestamp, String sellPrice) {
+        return PriceRecord.builder()
+                .symbol(symbol)
+                .timestamp(timestamp)
+                .spotPrice(new BigDecimal(sellPrice))
+                .sellPrice(new BigDecimal(sellPrice))
+                .ttl(Instant.now().plus(Duration.ofDays(30)).getEpochSecond())
+                .build();
+    }
+
+    private static List<Instant> timestampsOf(List<PriceRecord> records) {
+        return records.stream().map(PriceRecord::getTimestamp).toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.tracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the ticker feed against a local websocket stub that records what the client sends and
+ * pushes ticker messages back
+ */
+class TickerFeedServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private final Queue<Sinks.Many<String>> connections = new ConcurrentLinkedQueue<>();
+
+    private DisposableServer server;
+    private LastPriceBook lastPriceBook;
+    private TickerFeedService feed;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.ws("/feed", (in, out) -> {
+                    Sinks.Many<String> toClient = Sinks.many().unicast().onBackpressureBuffer();
+                    connections.add(toClient);
+                    // Completing toClient closes the connection
+                    return Mono.firstWithSignal(
+                            in.receive().asString().doOnNext(received::add).then(),
+                            out.sendString(toClient.asFlux()).then());
+                }))
+                .bindNow();
+
+        lastPriceBook = new LastPriceBook();
+        ReflectionTestUtils.setField(lastPriceBook, "maxAgeMillis", 5000L);
+
+        feed = new TickerFeedService(lastPriceBook, objectMapper);
+        ReflectionTestUtils.setField(feed, "enabled", true);
+        ReflectionTestUtils.setField(feed, "feedUrl", "ws://localhost:" + server.port() + "/feed");
+        ReflectionTestUtils.setField(feed, "reconnectDelayMillis", 100L);
+        ReflectionTestUtils.setField(feed, "initialSymbols", List.of("BTC-USD"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+        server.disposeNow();
+    }
+
+    @Test
+    void subscribesOnConnectAndUpdatesTheBook() {
+        feed.init();
+        await(() -> subscribedSymbols().contains("BTC-USD"));
+
+        connections.peek().tryEmitNext("""
+                {"type":"ticker","product_id":"BTC-USD","price":"42000.50","best_bid":"42000.00",\
+                "best_ask":"42001.00","time":"2026-10-14T12:00:00Z"}""");
+
+        await(() -> lastPriceBook.getFresh("BTC-USD").isPresent());
+        assertThat(lastPriceBook.getFresh("BTC-USD").get().getSpotPrice()).isEqualByComparingTo("42000.50");
+        assertThat(lastPriceBook.getFresh("BTC-USD").get().getSellPrice()).isEqualByComparingTo("42000.00");
+    }
+
+    @Test
+    void concurrentSubscribesAreAllSent() throws InterruptedException {
+        feed.init();
+        await(() -> subscribedSymbols().contains("BTC-USD"));
+
+        List<String> symbols = IntStream.range(0, 200).mapToObj(i -> "C" + i + "-USD").toList();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            symbols.forEach(symbol -> executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                feed.subscribe(symbol);
+            }));
+            start.countDown();
+            await(() -> subscribedSymbols().containsAll(symbols));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        feed.unsubscribe("C0-USD");
+        await(() -> messagesOfType("unsubscribe").contains("C0-USD"));
+    }
+
+    @Test
+    void resubscribesEverySymbolAfterReconnect() {
+        feed.init();
+        await(() -> subscribedSymbols().contains("BTC-USD"));
+        feed.subscribe("ETH-USD");
+        await(() -> subscribedSymbols().contains("ETH-USD"));
+
+        received.clear();
+        connections.poll().tryEmitComplete();
+
+        await(() -> connections.size() == 1 && subscribedSymbols().containsAll(Set.of("BTC-USD", "ETH-USD")));
+    }
+
+    private Set<String> subscribedSymbols() {
+        return messagesOfType("subscribe");
+    }
+
+    private Set<String> messagesOfType(String type) {
+        Set<String> symbols = ConcurrentHashMap.newKeySet();
+        for (String message : received) {
+            try {
+                JsonNode node = objectMapper.readTree(message);
+                if (type.equals(node.path("type").asText())) {
+                    node.path("product_ids").forEach(id -> symbols.add(id.asText()));
+                }
+            } catch (Exception e) {
+                throw new AssertionError("Client sent malformed message: " + message, e);
+            }
+        }
+        return symbols;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting", e);
+            }
+        }
+    }
+}